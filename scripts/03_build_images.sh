@@ -4,11 +4,18 @@ set -eo pipefail
 
 VERSION=${VERSION:-v1}
 CLUSTER_NAME=${CLUSTER_NAME:-otel-platform-demo}
+# jar: plain JDK image; cds: JRE-only layered image with an AppCDS archive (Dockerfile.cds)
+BUILD_MODE=${BUILD_MODE:-jar}
+
+JAVA_DOCKERFILE=Dockerfile
+if [ "$BUILD_MODE" = "cds" ]; then
+    JAVA_DOCKERFILE=Dockerfile.cds
+fi
 
 echo "Building Docker images..."
 docker build -f ./services/frontend/Dockerfile -t frontend:$VERSION ./services/frontend
-docker build -f ./services/todo-service/Dockerfile -t todo-service:$VERSION ./services/todo-service
-docker build -f ./services/notification-service/Dockerfile -t notification-service:$VERSION ./services/notification-service
+docker build -f ./services/todo-service/$JAVA_DOCKERFILE -t todo-service:$VERSION ./services/todo-service
+docker build -f ./services/notification-service/$JAVA_DOCKERFILE -t notification-service:$VERSION ./services/notification-service
 
 echo "Loading images into kind cluster..."
 kind load docker-image --name $CLUSTER_NAME frontend:$VERSION
@@ -0,0 +1,112 @@
+#!/usr/bin/env bash
+
+# Compares startup of the plain images with the CDS images (Dockerfile.cds).
+# For each image the service pod is recreated several times and the startup lines logged by
+# StartupTimer are collected: time from JVM start to the first GET /todos served (todo-service)
+# and to the first consumed todo event (notification-service). A curl pod keeps requesting
+# GET /todos while todo-service starts; a todo is created while notification-service is down so
+# an event is waiting in its queue.
+#
+# Requires: kubectl (pointing at the demo cluster) and both image variants loaded, e.g.
+#   scripts/03_build_images.sh && VERSION=v1-cds BUILD_MODE=cds scripts/03_build_images.sh
+# Usage: scripts/loadtest/startup.sh [runs] [plain tag] [cds tag]
+
+set -eo pipefail
+
+RUNS="${1:-5}"
+PLAIN_TAG="${2:-v1}"
+CDS_TAG="${3:-v1-cds}"
+RESULTS_DIR="loadtest-results/startup-$(date +%Y%m%d-%H%M%S)"
+PROBE_POD=startup-probe
+
+mkdir -p "$RESULTS_DIR"
+
+kubectl delete pod "$PROBE_POD" --ignore-not-found >/dev/null
+kubectl run "$PROBE_POD" --image=curlimages/curl --restart=Never --command -- sleep infinity >/dev/null
+kubectl wait --for=condition=Ready pod/"$PROBE_POD" --timeout=120s >/dev/null
+trap 'kubectl delete pod "$PROBE_POD" --ignore-not-found --wait=false >/dev/null' EXIT
+
+# Waits for a log line of the current pod of a service and prints the milliseconds it reports
+wait_for_log() {
+    local service=$1
+    local pattern=$2
+    local pod
+    for _ in $(seq 1 300); do
+        pod=$(kubectl get pods -l app="$service" --field-selector=status.phase=Running \
+            -o jsonpath='{.items[0].metadata.name}' 2>/dev/null || true)
+        if [ -n "$pod" ]; then
+            local line
+            line=$(kubectl logs "$pod" 2>/dev/null | grep "$pattern" | head -1 || true)
+            if [ -n "$line" ]; then
+                echo "$line" | sed -E 's/.* ([0-9]+) ms after JVM start.*/\1/'
+                return
+            fi
+        fi
+        sleep 1
+    done
+    echo "timeout"
+}
+
+restart() {
+    local service=$1
+    kubectl delete pod -l app="$service" --wait=true >/dev/null
+}
+
+measure_todo_service() {
+    local image=$1
+    local label=$2
+    kubectl set image deployment/todo-service todo-service="$image" >/dev/null
+    kubectl rollout status deployment/todo-service --timeout=300s >/dev/null
+
+    for run in $(seq 1 "$RUNS"); do
+        restart todo-service
+        kubectl exec "$PROBE_POD" -- sh -c \
+            'until curl -sf -o /dev/null http://todo-service:3000/todos; do sleep 0.1; done' &
+        local probe_pid=$!
+        local ready first_request
+        ready=$(wait_for_log todo-service "Application ready")
+        first_request=$(wait_for_log todo-service "First GET /todos served")
+        wait "$probe_pid" || true
+        echo "todo-service $label run $run: ready ${ready} ms, first GET /todos ${first_request} ms" \
+            | tee -a "$RESULTS_DIR/todo-service-$label.txt"
+    done
+}
+
+measure_notification_service() {
+    local image=$1
+    local label=$2
+    kubectl set image deployment/notification-service notification-service="$image" >/dev/null
+    kubectl rollout status deployment/notification-service --timeout=300s >/dev/null
+
+    for run in $(seq 1 "$RUNS"); do
+        kubectl scale deployment/notification-service --replicas=0 >/dev/null
+        kubectl wait --for=delete pod -l app=notification-service --timeout=120s >/dev/null || true
+        kubectl exec "$PROBE_POD" -- curl -sf -o /dev/null -X POST -H 'Content-Type: application/json' \
+            -d '{"name":"startup probe"}' http://todo-service:3000/todos
+        kubectl scale deployment/notification-service --replicas=1 >/dev/null
+        local ready first_message
+        ready=$(wait_for_log notification-service "Application ready")
+        first_message=$(wait_for_log notification-service "First todo event consumed")
+        echo "notification-service $label run $run: ready ${ready} ms, first consumed event ${first_message} ms" \
+            | tee -a "$RESULTS_DIR/notification-service-$label.txt"
+    done
+}
+
+measure_todo_service "todo-service:$PLAIN_TAG" plain
+measure_todo_service "todo-service:$CDS_TAG" cds
+measure_notification_service "notification-service:$PLAIN_TAG" plain
+measure_notification_service "notification-service:$CDS_TAG" cds
+
+# Leave the cluster on the plain images, as deployed by the manifests
+kubectl set image deployment/todo-service todo-service="todo-service:$PLAIN_TAG" >/dev/null
+kubectl set image deployment/notification-service notification-service="notification-service:$PLAIN_TAG" >/dev/null
+
+echo ""
+echo "Averages (ms after JVM start):"
+for file in "$RESULTS_DIR"/*.txt; do
+    awk -v name="$(basename "$file" .txt)" '
+        { for (i = 1; i < NF; i++) if ($i == "ready") ready += $(i + 1); first += $(NF-1); n++ }
+        END { if (n) printf "  %-28s ready %6.0f  first %6.0f\n", name, ready / n, first / n }' "$file"
+done | tee "$RESULTS_DIR/summary.txt"
+
+echo "Full results in $RESULTS_DIR"
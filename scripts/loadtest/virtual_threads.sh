@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+
+# Compares todo-service throughput with platform threads vs. virtual threads.
+# Toggles SPRING_THREADS_VIRTUAL_ENABLED on the deployment, waits for the rollout,
+# then drives GET and POST /todos with `hey` at high concurrency for each mode.
+#
+# Requires: kubectl (pointing at the demo cluster) and hey (https://github.com/rakyll/hey)
+# Usage: scripts/loadtest/virtual_threads.sh [concurrency] [duration]
+
+set -eo pipefail
+
+CONCURRENCY="${1:-500}"
+DURATION="${2:-60s}"
+LOCAL_PORT=18080
+RESULTS_DIR="loadtest-results/virtual-threads-$(date +%Y%m%d-%H%M%S)"
+
+mkdir -p "$RESULTS_DIR"
+
+run_mode() {
+    local mode=$1
+    local enabled=$2
+
+    echo "Switching todo-service to $mode threads..."
+    kubectl set env deployment/todo-service SPRING_THREADS_VIRTUAL_ENABLED="$enabled"
+    kubectl rollout status deployment/todo-service --timeout=180s
+
+    kubectl port-forward svc/todo-service "$LOCAL_PORT":3000 >/dev/null 2>&1 &
+    local port_forward_pid=$!
+    trap 'kill $port_forward_pid 2>/dev/null || true' RETURN
+    sleep 3
+
+    # Warm up the JIT and connection pools before measuring
+    hey -c 20 -z 15s "http://localhost:$LOCAL_PORT/todos" >/dev/null
+
+    echo "Running GET /todos with $CONCURRENCY concurrent clients for $DURATION..."
+    hey -c "$CONCURRENCY" -z "$DURATION" "http://localhost:$LOCAL_PORT/todos?limit=20" \
+        > "$RESULTS_DIR/$mode-get.txt"
+
+    echo "Running POST /todos with $CONCURRENCY concurrent clients for $DURATION..."
+    hey -c "$CONCURRENCY" -z "$DURATION" -m POST -T application/json -d '{"name":"load test"}' \
+        "http://localhost:$LOCAL_PORT/todos" > "$RESULTS_DIR/$mode-post.txt"
+}
+
+run_mode platform false
+run_mode virtual true
+
+echo ""
+echo "Results (requests/sec, p99 latency):"
+for file in "$RESULTS_DIR"/*.txt; do
+    rps=$(grep "Requests/sec" "$file" | awk '{print $2}')
+    p99=$(grep "99% in" "$file" | awk '{print $3}')
+    printf "  %-20s %10s req/s  p99 %ss\n" "$(basename "$file" .txt)" "$rps" "$p99"
+done | tee "$RESULTS_DIR/summary.txt"
+
+echo "Full reports in $RESULTS_DIR"
@@ -4,6 +4,19 @@ import './App.css';
 
 const tracer = trace.getTracer('frontend', '1.0.0');
 
+// Newest first, one entry per id, only the last 10
+const mergeNotifications = (current, incoming) => {
+  const byId = new Map();
+  [...incoming, ...current].forEach(notification => {
+    if (!byId.has(notification.id)) {
+      byId.set(notification.id, notification);
+    }
+  });
+  return [...byId.values()]
+    .sort((a, b) => new Date(b.receivedAt) - new Date(a.receivedAt))
+    .slice(0, 10);
+};
+
 function App() {
   const [todos, setTodos] = useState([]);
   const [newTodo, setNewTodo] = useState('');
@@ -14,10 +27,21 @@ function App() {
   // Load todos and notifications on component mount
   useEffect(() => {
     loadTodos();
-    loadNotifications();
-    // Refresh notifications every 2 seconds
-    const interval = setInterval(loadNotifications, 2000);
-    return () => clearInterval(interval);
+    // Receive new notifications as they are stored instead of polling.
+    // EventSource reconnects on its own and resumes with Last-Event-ID.
+    const stream = new EventSource('/notifications/stream');
+    // Load the list once the stream is attached, so nothing stored in between is missed
+    stream.addEventListener('open', loadNotifications, { once: true });
+    stream.addEventListener('notification', (event) => {
+      const notification = JSON.parse(event.data);
+      if (notification.id == null) {
+        notification.id = `feed-${event.lastEventId}`;
+      }
+      setNotifications(current => mergeNotifications(current, [notification]));
+    });
+    // Sent when we were disconnected for longer than the server can replay
+    stream.addEventListener('reset', loadNotifications);
+    return () => stream.close();
   }, []);
 
   const loadTodos = async () => {
@@ -144,7 +168,8 @@ function App() {
       const response = await fetch('/notifications');
       if (response.ok) {
         const data = await response.json();
-        setNotifications(data.slice(0, 10)); // Show only last 10
+        // Streamed items may arrive before the list does, so merge instead of replacing
+        setNotifications(current => mergeNotifications(current, data));
       }
     } catch (err) {
       console.error('Error loading notifications:', err);
@@ -0,0 +1,96 @@
+package com.dash0.examples.notificationservice;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message handling in {@link NotificationConsumer} against an in-memory repository,
+ * with and without the JSON conversion the listener container performs first. Run with the
+ * gc profiler to compare the allocation per event of the two logging modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NotificationConsumerBenchmark {
+
+    @Param({"per-event", "summary"})
+    private String loggingMode;
+
+    private NotificationConsumer consumer;
+    private Jackson2JsonMessageConverter converter;
+    private TodoEvent event;
+    private Message message;
+
+    @Setup
+    public void setUp() {
+        consumer = new NotificationConsumer();
+        inject(consumer, "notificationRepository", notificationRepository());
+        inject(consumer, "notificationCounters", new NotificationCounters(null, null, 1, false, false) {
+            @Override
+            public void increment(String eventType, LocalDateTime receivedAt, long delta) {
+            }
+        });
+        inject(consumer, "notificationFeed", new NotificationFeed(1024, 256, Duration.ofMinutes(30), 1));
+        inject(consumer, "eventLogSummary", new EventLogSummary(loggingMode));
+        inject(consumer, "searchIndex", new NotificationSearchIndex(null, false, 1));
+        inject(consumer, "startupTimer", new StartupTimer());
+        inject(consumer, "eventDeduplicator", new EventDeduplicator(null, false, 1, 0.01));
+        inject(consumer, "recentNotifications", new RecentNotifications(null, false, 1));
+
+        converter = new Jackson2JsonMessageConverter();
+        event = new TodoEvent(42L, "Buy groceries", "2025-01-01T12:00:00.000000Z");
+        message = converter.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public void handleEvent() {
+        consumer.handleTodoCreatedEvent(event);
+    }
+
+    @Benchmark
+    public void convertAndHandleMessage() {
+        consumer.handleTodoCreatedEvent((TodoEvent) converter.fromMessage(message, TodoEvent.class));
+    }
+
+    @Benchmark
+    public Notification createNotification() {
+        return new Notification(42L, "Buy groceries", "created", "2025-01-01T12:00:00.000000Z");
+    }
+
+    private static void inject(Object target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    /**
+     * Repository whose save returns the entity unchanged; every other method is unsupported.
+     */
+    private static NotificationRepository notificationRepository() {
+        return (NotificationRepository) Proxy.newProxyInstance(
+            NotificationRepository.class.getClassLoader(),
+            new Class<?>[] {NotificationRepository.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("save")) {
+                    return args[0];
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+}
@@ -0,0 +1,61 @@
+package com.dash0.examples.notificationservice;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * End-to-end lag (event timestamp to receipt) and handling time histograms shared by the
+ * consumer variants. The lag includes clock skew between the todo-service and this instance.
+ */
+class ConsumerLatencyMetrics {
+
+    private static final AttributeKey<String> EVENT_TYPE = AttributeKey.stringKey("event.type");
+    private static final AttributeKey<String> CONSUMER_MODE = AttributeKey.stringKey("consumer.mode");
+
+    private final DoubleHistogram eventLag;
+    private final DoubleHistogram handlingDuration;
+    private final Attributes createdAttributes;
+    private final Attributes deletedAttributes;
+
+    ConsumerLatencyMetrics(String consumerMode) {
+        Meter meter = GlobalOpenTelemetry.get().getMeter("notification-consumer");
+        this.eventLag = meter.histogramBuilder("notification.event.lag")
+            .setDescription("Time between the todo event being created and received by the consumer")
+            .setUnit("ms")
+            .build();
+        this.handlingDuration = meter.histogramBuilder("notification.handling.duration")
+            .setDescription("Time spent handling a delivery (single event or batch)")
+            .setUnit("ms")
+            .build();
+        this.createdAttributes = Attributes.of(EVENT_TYPE, "created", CONSUMER_MODE, consumerMode);
+        this.deletedAttributes = Attributes.of(EVENT_TYPE, "deleted", CONSUMER_MODE, consumerMode);
+    }
+
+    void recordLag(TodoEvent todoEvent, String eventType) {
+        Instant eventInstant;
+        try {
+            eventInstant = todoEvent.getInstant();
+        } catch (DateTimeParseException e) {
+            return;
+        }
+        if (eventInstant != null) {
+            long lagMs = Duration.between(eventInstant, Instant.now()).toMillis();
+            eventLag.record(Math.max(0, lagMs), attributes(eventType));
+        }
+    }
+
+    void recordHandling(long startNanos, String eventType) {
+        handlingDuration.record((System.nanoTime() - startNanos) / 1_000_000.0, attributes(eventType));
+    }
+
+    private Attributes attributes(String eventType) {
+        return "deleted".equals(eventType) ? deletedAttributes : createdAttributes;
+    }
+}
@@ -0,0 +1,253 @@
+package com.dash0.examples.notificationservice;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Drops redelivered todo events by their event id. Ids stored recently are kept in two rotating
+ * Bloom filters of window-size ids each, so a new event is usually recognised as new without a
+ * query; only filter hits are confirmed against the unique event_id column. Events older than
+ * the window and concurrent redeliveries on other instances are caught by the unique constraint:
+ * the failed insert marks the id as seen and the retry drops it.
+ */
+@Component
+public class EventDeduplicator {
+
+    private static final AttributeKey<String> EVENT_TYPE = AttributeKey.stringKey("event.type");
+    private static final AttributeKey<String> RESULT = AttributeKey.stringKey("result");
+    private static final Attributes FILTER_MISS = Attributes.of(RESULT, "filter_miss");
+    private static final Attributes DB_HIT = Attributes.of(RESULT, "db_hit");
+    private static final Attributes DB_MISS = Attributes.of(RESULT, "db_miss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int windowSize;
+    private final double falsePositiveRate;
+    private final LongCounter checksCounter;
+    private final LongCounter droppedCounter;
+
+    // Guarded by this
+    private BloomFilter current;
+    private BloomFilter previous;
+
+    public EventDeduplicator(JdbcTemplate jdbcTemplate,
+                             @Value("${notification.dedup.enabled:false}") boolean enabled,
+                             @Value("${notification.dedup.window-size:100000}") int windowSize,
+                             @Value("${notification.dedup.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.windowSize = windowSize;
+        this.falsePositiveRate = falsePositiveRate;
+        if (enabled) {
+            this.current = new BloomFilter(windowSize, falsePositiveRate);
+            this.previous = new BloomFilter(windowSize, falsePositiveRate);
+        }
+
+        Meter meter = GlobalOpenTelemetry.get().getMeter("notification-consumer");
+        this.checksCounter = meter.counterBuilder("notification.dedup.checks")
+            .setDescription("Duplicate checks by result: filter_miss needs no query, db_miss is a filter false positive")
+            .build();
+        this.droppedCounter = meter.counterBuilder("notification.duplicates.dropped")
+            .setDescription("Redelivered todo events dropped without storing a notification")
+            .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether a notification for this event is already stored. Events without an id are never
+     * duplicates.
+     */
+    public boolean isDuplicate(TodoEvent todoEvent, String eventType) {
+        UUID eventId = todoEvent.getEventId();
+        if (!enabled || eventId == null) {
+            return false;
+        }
+        if (!mightContain(eventId)) {
+            checksCounter.add(1, FILTER_MISS);
+            return false;
+        }
+        Integer stored = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM notifications WHERE event_id = ?", Integer.class, toBytes(eventId));
+        boolean duplicate = stored != null && stored > 0;
+        checksCounter.add(1, duplicate ? DB_HIT : DB_MISS);
+        if (duplicate) {
+            droppedCounter.add(1, Attributes.of(EVENT_TYPE, eventType));
+        }
+        return duplicate;
+    }
+
+    /**
+     * Batch variant of {@link #isDuplicate}: returns the events that are not stored yet, also
+     * dropping repeated ids within the batch. All filter hits are confirmed with one query.
+     */
+    public List<TodoEvent> removeDuplicates(List<TodoEvent> todoEvents, String eventType) {
+        if (!enabled) {
+            return todoEvents;
+        }
+
+        Set<UUID> seenInBatch = new HashSet<>();
+        List<UUID> suspects = new ArrayList<>();
+        int repeated = 0;
+        for (TodoEvent todoEvent : todoEvents) {
+            UUID eventId = todoEvent.getEventId();
+            if (eventId == null) {
+                continue;
+            }
+            if (!seenInBatch.add(eventId)) {
+                repeated++;
+            } else if (mightContain(eventId)) {
+                suspects.add(eventId);
+            } else {
+                checksCounter.add(1, FILTER_MISS);
+            }
+        }
+
+        Set<UUID> stored = suspects.isEmpty() ? Collections.emptySet() : findStored(suspects);
+        checksCounter.add(stored.size(), DB_HIT);
+        checksCounter.add(suspects.size() - stored.size(), DB_MISS);
+        if (stored.isEmpty() && repeated == 0) {
+            return todoEvents;
+        }
+
+        List<TodoEvent> fresh = new ArrayList<>(todoEvents.size());
+        Set<UUID> kept = new HashSet<>();
+        for (TodoEvent todoEvent : todoEvents) {
+            UUID eventId = todoEvent.getEventId();
+            if (eventId == null || (!stored.contains(eventId) && kept.add(eventId))) {
+                fresh.add(todoEvent);
+            }
+        }
+        droppedCounter.add(todoEvents.size() - fresh.size(), Attributes.of(EVENT_TYPE, eventType));
+        return fresh;
+    }
+
+    /**
+     * Remembers the ids once the surrounding transaction has committed; outside a transaction
+     * they are remembered immediately.
+     */
+    public void recordAfterCommit(Collection<UUID> eventIds) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> record(eventIds));
+    }
+
+    /**
+     * Remembers ids whose insert hit the unique constraint, so the retry checks the database
+     * and drops them.
+     */
+    public void recordSeen(Collection<UUID> eventIds) {
+        if (enabled) {
+            record(eventIds);
+        }
+    }
+
+    private synchronized boolean mightContain(UUID eventId) {
+        return current.mightContain(eventId) || previous.mightContain(eventId);
+    }
+
+    private synchronized void record(Collection<UUID> eventIds) {
+        for (UUID eventId : eventIds) {
+            if (eventId == null) {
+                continue;
+            }
+            if (current.size() >= windowSize) {
+                previous = current;
+                current = new BloomFilter(windowSize, falsePositiveRate);
+            }
+            current.add(eventId);
+        }
+    }
+
+    private Set<UUID> findStored(List<UUID> eventIds) {
+        String placeholders = String.join(",", Collections.nCopies(eventIds.size(), "?"));
+        Set<UUID> stored = new HashSet<>();
+        jdbcTemplate.query("SELECT event_id FROM notifications WHERE event_id IN (" + placeholders + ")",
+            rs -> {
+                stored.add(fromBytes(rs.getBytes(1)));
+            },
+            eventIds.stream().map(EventDeduplicator::toBytes).toArray());
+        return stored;
+    }
+
+    // Same layout Hibernate uses for the binary(16) event_id column
+    static byte[] toBytes(UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        return ByteBuffer.allocate(16)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits())
+            .array();
+    }
+
+    private static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static final class BloomFilter {
+        private final long[] bits;
+        private final int numBits;
+        private final int numHashes;
+        private int size;
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            this.numBits = (int) Math.max(64, Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2)));
+            this.numHashes = (int) Math.max(1, Math.round((double) numBits / expectedInsertions * ln2));
+            this.bits = new long[(numBits + 63) / 64];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(UUID eventId) {
+            long hash1 = mix(eventId.getMostSignificantBits());
+            long hash2 = mix(eventId.getLeastSignificantBits() ^ hash1) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                int bit = (int) Math.floorMod(hash1 + i * hash2, (long) numBits);
+                bits[bit >>> 6] |= 1L << bit;
+            }
+            size++;
+        }
+
+        boolean mightContain(UUID eventId) {
+            long hash1 = mix(eventId.getMostSignificantBits());
+            long hash2 = mix(eventId.getLeastSignificantBits() ^ hash1) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                int bit = (int) Math.floorMod(hash1 + i * hash2, (long) numBits);
+                if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // SplitMix64 finalizer
+        private static long mix(long value) {
+            value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+            value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+            return value ^ (value >>> 31);
+        }
+    }
+}
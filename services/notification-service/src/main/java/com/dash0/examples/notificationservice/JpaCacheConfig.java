@@ -0,0 +1,53 @@
+package com.dash0.examples.notificationservice;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate second-level and query cache for the {@code jpa-cache} profile (see
+ * application-jpa-cache.properties). Regions are bounded Caffeine caches behind JCache and are
+ * created up front, so no region silently falls back to an unbounded default.
+ */
+@Configuration
+@Profile("jpa-cache")
+public class JpaCacheConfig {
+
+    static final String NOTIFICATION_REGION = "notification";
+    static final String RECENT_NOTIFICATIONS_REGION = "recent-notifications";
+
+    @Bean
+    public HibernatePropertiesCustomizer jpaCacheManagerCustomizer(
+            @Value("${notification.jpa.cache.max-size:10000}") long maxSize,
+            @Value("${notification.jpa.cache.ttl:10m}") Duration ttl,
+            @Value("${notification.jpa.cache.query-ttl:30s}") Duration queryTtl) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager();
+        cacheManager.createCache(NOTIFICATION_REGION, region(maxSize, ttl));
+        cacheManager.createCache(RECENT_NOTIFICATIONS_REGION, region(16, queryTtl));
+        // Created by Hibernate whenever the query cache is on, even though every query names its region
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(16, queryTtl));
+        // Update timestamps (one entry per table) must outlive every cached query result, so never expire them
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+            new CaffeineConfiguration<>());
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+}
@@ -0,0 +1,59 @@
+package com.dash0.examples.notificationservice;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-region hit, miss and hit ratio metrics of the Hibernate second-level cache, read from
+ * Hibernate's statistics (enabled by the {@code jpa-cache} profile).
+ */
+@Component
+@Profile("jpa-cache")
+public class JpaCacheMetrics {
+
+    private static final AttributeKey<String> REGION = AttributeKey.stringKey("region");
+
+    public JpaCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Meter meter = GlobalOpenTelemetry.get().getMeter("jpa-cache");
+        meter.counterBuilder("hibernate.cache.hits")
+            .setDescription("Second-level cache hits per region")
+            .buildWithCallback(measurement -> forEachRegion(statistics,
+                (region, stats) -> measurement.record(stats.getHitCount(), region)));
+        meter.counterBuilder("hibernate.cache.misses")
+            .setDescription("Second-level cache misses per region")
+            .buildWithCallback(measurement -> forEachRegion(statistics,
+                (region, stats) -> measurement.record(stats.getMissCount(), region)));
+        meter.gaugeBuilder("hibernate.cache.hit_ratio")
+            .setDescription("Second-level cache hit ratio per region since startup")
+            .buildWithCallback(measurement -> forEachRegion(statistics, (region, stats) -> {
+                long requests = stats.getHitCount() + stats.getMissCount();
+                if (requests > 0) {
+                    measurement.record((double) stats.getHitCount() / requests, region);
+                }
+            }));
+    }
+
+    private static void forEachRegion(Statistics statistics, RegionCallback callback) {
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(regionName);
+            if (regionStatistics != null) {
+                callback.accept(Attributes.of(REGION, regionName), regionStatistics);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RegionCallback {
+        void accept(Attributes region, CacheRegionStatistics statistics);
+    }
+}
@@ -0,0 +1,100 @@
+package com.dash0.examples.notificationservice;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Retires the per-type queues when sharding is switched on. Without this they stay bound to
+ * todo.events and keep filling with nobody consuming them. Each legacy queue is unbound first,
+ * then the messages still in it are moved to the sharded exchange (publish and ack in one channel
+ * transaction, so a crash cannot lose them), and the queue is deleted once it is empty. Events
+ * published while both topologies were bound can be delivered twice; notification.dedup drops
+ * those.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.consumer.sharding.enabled", havingValue = "true")
+public class LegacyQueueMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyQueueMigration.class);
+    private static final Map<String, String> LEGACY_QUEUES = Map.of(
+        RabbitMQConfig.CREATED_QUEUE_NAME, RabbitMQConfig.CREATED_ROUTING_KEY,
+        RabbitMQConfig.DELETED_QUEUE_NAME, RabbitMQConfig.DELETED_ROUTING_KEY);
+    private static final int MESSAGES_PER_COMMIT = 100;
+
+    private final AmqpAdmin amqpAdmin;
+    private final ConnectionFactory connectionFactory;
+
+    public LegacyQueueMigration(AmqpAdmin amqpAdmin, ConnectionFactory connectionFactory) {
+        this.amqpAdmin = amqpAdmin;
+        this.connectionFactory = connectionFactory;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        LEGACY_QUEUES.forEach((queueName, routingKey) -> {
+            try {
+                migrate(queueName, routingKey);
+            } catch (Exception e) {
+                // Retried on the next start; until then the queue may keep receiving events
+                logger.error("Failed to retire legacy queue {}", queueName, e);
+            }
+        });
+    }
+
+    private void migrate(String queueName, String routingKey) throws Exception {
+        if (amqpAdmin.getQueueInfo(queueName) == null) {
+            return;
+        }
+        amqpAdmin.removeBinding(new Binding(queueName, Binding.DestinationType.QUEUE,
+            RabbitMQConfig.EXCHANGE_NAME, routingKey, null));
+
+        int moved = moveToShardedExchange(queueName);
+        logger.info("Retired legacy queue {}, moved {} messages to {}",
+            queueName, moved, RabbitMQConfig.SHARDED_EXCHANGE_NAME);
+    }
+
+    private int moveToShardedExchange(String queueName) throws Exception {
+        int moved = 0;
+        try (Connection connection = connectionFactory.createConnection()) {
+            Channel channel = connection.createChannel(true);
+            try {
+                GetResponse response;
+                while ((response = channel.basicGet(queueName, false)) != null) {
+                    // The routing key and the x-todo-id header are kept, so the message hashes to its shard
+                    channel.basicPublish(RabbitMQConfig.SHARDED_EXCHANGE_NAME, response.getEnvelope().getRoutingKey(),
+                        response.getProps(), response.getBody());
+                    channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                    if (++moved % MESSAGES_PER_COMMIT == 0) {
+                        channel.txCommit();
+                    }
+                }
+                channel.txCommit();
+            } finally {
+                channel.close();
+            }
+
+            // Deleted only if empty, anything that still arrived is moved on the next start
+            Channel deleteChannel = connection.createChannel(false);
+            try {
+                deleteChannel.queueDelete(queueName, false, true);
+            } finally {
+                if (deleteChannel.isOpen()) {
+                    deleteChannel.close();
+                }
+            }
+        }
+        return moved;
+    }
+}
@@ -1,12 +1,26 @@
 package com.dash0.examples.notificationservice;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.UUID;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notifications_received_at", columnList = "received_at")
+}, uniqueConstraints = {
+    // Redelivered events cannot be stored twice; rows without an event id are not constrained
+    @UniqueConstraint(name = "uk_notifications_event_id", columnNames = "event_id")
+})
+// Only takes effect when the second-level cache is enabled (jpa-cache profile).
+// Notifications are never updated after insert.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = JpaCacheConfig.NOTIFICATION_REGION)
 public class Notification {
 
     @Id
@@ -28,6 +42,11 @@ public class Notification {
     @Column(name = "received_at", nullable = false)
     private LocalDateTime receivedAt;
 
+    // Set only when deduplication is enabled
+    @Column(name = "event_id", length = 16)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID eventId;
+
     public Notification() {
     }
 
@@ -81,6 +100,14 @@ public class Notification {
         this.receivedAt = receivedAt;
     }
 
+    public UUID getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(UUID eventId) {
+        this.eventId = eventId;
+    }
+
     public String getEventType() {
         return eventType;
     }
@@ -0,0 +1,114 @@
+package com.dash0.examples.notificationservice;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.metrics.LongCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Batch variant of {@link NotificationConsumer}. Each delivery is a list of events that is
+ * written with one multi-row insert; the container acks the whole batch once this returns.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.consumer.batch.enabled", havingValue = "true")
+public class NotificationBatchConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationBatchConsumer.class);
+
+    private final NotificationBatchWriter batchWriter;
+    private final StartupTimer startupTimer;
+    private final EventDeduplicator eventDeduplicator;
+    private final LongCounter createdNotificationsCounter;
+    private final LongCounter deletedNotificationsCounter;
+    private final ConsumerLatencyMetrics latencyMetrics = new ConsumerLatencyMetrics("batch");
+
+    public NotificationBatchConsumer(NotificationBatchWriter batchWriter, StartupTimer startupTimer,
+                                     EventDeduplicator eventDeduplicator) {
+        this.batchWriter = batchWriter;
+        this.startupTimer = startupTimer;
+        this.eventDeduplicator = eventDeduplicator;
+
+        var openTelemetry = GlobalOpenTelemetry.get();
+        this.createdNotificationsCounter = openTelemetry.getMeter("notification-consumer")
+            .counterBuilder("notifications.created")
+            .setDescription("Number of created notifications sent")
+            .build();
+        this.deletedNotificationsCounter = openTelemetry.getMeter("notification-consumer")
+            .counterBuilder("notifications.deleted")
+            .setDescription("Number of deleted notifications sent")
+            .build();
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.CREATED_QUEUE_NAME,
+        containerFactory = RabbitMQConfig.BATCH_CONTAINER_FACTORY)
+    public void handleTodoCreatedEvents(List<TodoEvent> todoEvents) {
+        createdNotificationsCounter.add(handleBatch(todoEvents, "created"));
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.DELETED_QUEUE_NAME,
+        containerFactory = RabbitMQConfig.BATCH_CONTAINER_FACTORY)
+    public void handleTodoDeletedEvents(List<TodoEvent> todoEvents) {
+        deletedNotificationsCounter.add(handleBatch(todoEvents, "deleted"));
+    }
+
+    /**
+     * Stores the batch and returns the number of events handled, redelivered events excluded.
+     */
+    private int handleBatch(List<TodoEvent> todoEvents, String eventType) {
+        long startNanos = System.nanoTime();
+        try {
+            for (TodoEvent todoEvent : todoEvents) {
+                latencyMetrics.recordLag(todoEvent, eventType);
+            }
+            List<TodoEvent> freshEvents = eventDeduplicator.removeDuplicates(todoEvents, eventType);
+            if (freshEvents.size() < todoEvents.size()) {
+                logger.info("Dropped {} redelivered todo {} events from batch",
+                    todoEvents.size() - freshEvents.size(), eventType);
+            }
+
+            List<Notification> notifications = new ArrayList<>(freshEvents.size());
+            List<UUID> eventIds = new ArrayList<>(freshEvents.size());
+            for (TodoEvent todoEvent : freshEvents) {
+                Notification notification = new Notification(
+                    todoEvent.getId(),
+                    todoEvent.getName(),
+                    eventType,
+                    todoEvent.getTimestamp()
+                );
+                if (eventDeduplicator.isEnabled()) {
+                    notification.setEventId(todoEvent.getEventId());
+                    eventIds.add(todoEvent.getEventId());
+                }
+                notifications.add(notification);
+            }
+
+            int inserted;
+            try {
+                inserted = batchWriter.insertAll(notifications);
+            } catch (DataIntegrityViolationException e) {
+                // Some of these were stored concurrently, the retry confirms which and drops them
+                eventDeduplicator.recordSeen(eventIds);
+                throw e;
+            }
+            eventDeduplicator.recordAfterCommit(eventIds);
+            logger.info("Saved batch of {} {} notifications to database", inserted, eventType);
+            startupTimer.messageConsumed();
+            return freshEvents.size();
+
+        } catch (Exception e) {
+            logger.error("Error processing batch of {} todo {} events: {}",
+                todoEvents.size(), eventType, e.getMessage(), e);
+            throw e; // Rethrow so the whole batch is retried / requeued together
+        } finally {
+            latencyMetrics.recordHandling(startNanos, eventType);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.dash0.examples.notificationservice;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class NotificationBatchWriter {
+
+    private static final String INSERT_PREFIX =
+        "INSERT INTO notifications (todo_id, todo_name, event_type, event_timestamp, received_at, event_id) VALUES ";
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS_PER_ROW = 6;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationCounters notificationCounters;
+    private final NotificationFeed notificationFeed;
+    private final NotificationQueryCacheInvalidator queryCacheInvalidator;
+    private final NotificationSearchIndex searchIndex;
+    private final RecentNotifications recentNotifications;
+
+    public NotificationBatchWriter(JdbcTemplate jdbcTemplate, NotificationCounters notificationCounters,
+                                   NotificationFeed notificationFeed,
+                                   NotificationQueryCacheInvalidator queryCacheInvalidator,
+                                   NotificationSearchIndex searchIndex,
+                                   RecentNotifications recentNotifications) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.notificationCounters = notificationCounters;
+        this.notificationFeed = notificationFeed;
+        this.queryCacheInvalidator = queryCacheInvalidator;
+        this.searchIndex = searchIndex;
+        this.recentNotifications = recentNotifications;
+    }
+
+    /**
+     * Persists all notifications with a single multi-row INSERT in one transaction, together
+     * with the matching counter updates. Generated ids are assigned to the notifications in
+     * order, MySQL hands out consecutive auto-increment values for one multi-row insert.
+     */
+    @Transactional
+    public int insertAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + notifications.size() * 17);
+        sql.append(INSERT_PREFIX);
+        List<Object> args = new ArrayList<>(notifications.size() * COLUMNS_PER_ROW);
+
+        for (int i = 0; i < notifications.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDER);
+
+            Notification notification = notifications.get(i);
+            args.add(notification.getTodoId());
+            args.add(notification.getTodoName());
+            args.add(notification.getEventType());
+            args.add(notification.getEventTimestamp());
+            args.add(Timestamp.valueOf(notification.getReceivedAt()));
+            args.add(EventDeduplicator.toBytes(notification.getEventId()));
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted = jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < notifications.size() && i < keys.size(); i++) {
+            notifications.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+
+        // A batch always comes from a single queue, but group anyway to stay correct for mixed input.
+        // Hourly counters bucket each row by its own receivedAt, a batch can straddle an hour boundary.
+        Map<CounterKey, Long> counts = new HashMap<>();
+        for (Notification notification : notifications) {
+            CounterKey key = new CounterKey(notification.getEventType(),
+                notification.getReceivedAt().truncatedTo(ChronoUnit.HOURS));
+            counts.merge(key, 1L, Long::sum);
+        }
+        counts.forEach((key, count) -> notificationCounters.increment(key.eventType(), key.hour(), count));
+        notificationFeed.publishAfterCommit(notifications);
+        queryCacheInvalidator.afterInsert();
+        searchIndex.indexAfterCommit(notifications);
+        recentNotifications.addAfterCommit(notifications);
+
+        return inserted;
+    }
+
+    private record CounterKey(String eventType, LocalDateTime hour) {
+    }
+}
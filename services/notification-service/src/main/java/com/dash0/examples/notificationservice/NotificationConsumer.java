@@ -6,9 +6,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
 
 @Component
+@ConditionalOnProperty(name = "notification.consumer.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class NotificationConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationConsumer.class);
@@ -16,8 +23,30 @@ public class NotificationConsumer {
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private NotificationCounters notificationCounters;
+
+    @Autowired
+    private NotificationFeed notificationFeed;
+
+    @Autowired
+    private EventLogSummary eventLogSummary;
+
+    @Autowired
+    private NotificationSearchIndex searchIndex;
+
+    @Autowired
+    private StartupTimer startupTimer;
+
+    @Autowired
+    private EventDeduplicator eventDeduplicator;
+
+    @Autowired
+    private RecentNotifications recentNotifications;
+
     private final LongCounter createdNotificationsCounter;
     private final LongCounter deletedNotificationsCounter;
+    private final ConsumerLatencyMetrics latencyMetrics = new ConsumerLatencyMetrics("single");
 
     public NotificationConsumer() {
         var openTelemetry = GlobalOpenTelemetry.get();
@@ -31,13 +60,25 @@ public class NotificationConsumer {
             .build();
     }
 
-    @RabbitListener(queues = RabbitMQConfig.CREATED_QUEUE_NAME)
+    @RabbitListener(queues = RabbitMQConfig.CREATED_QUEUE_NAME,
+        autoStartup = "#{!${notification.consumer.sharding.enabled:false}}")
+    @Transactional
     public void handleTodoCreatedEvent(TodoEvent todoEvent) {
+        long startNanos = System.nanoTime();
+        latencyMetrics.recordLag(todoEvent, "created");
         try {
-            logger.info("Received todo created event: id={}, name={}, timestamp={}",
-                todoEvent.getId(),
-                todoEvent.getName(),
-                todoEvent.getTimestamp());
+            boolean perEventLogging = eventLogSummary.isPerEvent();
+            if (perEventLogging) {
+                logger.info("Received todo created event: id={}, name={}, timestamp={}",
+                    todoEvent.getId(),
+                    todoEvent.getName(),
+                    todoEvent.getTimestamp());
+            }
+
+            if (eventDeduplicator.isDuplicate(todoEvent, "created")) {
+                logger.debug("Dropping redelivered todo created event {}", todoEvent.getEventId());
+                return;
+            }
 
             // Save notification to database
             Notification notification = new Notification(
@@ -46,30 +87,56 @@ public class NotificationConsumer {
                 "created",
                 todoEvent.getTimestamp()
             );
-            notificationRepository.save(notification);
-            logger.info("Saved created notification to database for todo id: {}", todoEvent.getId());
-
-            // Simulate notification processing
-            logger.info("Processing notification for todo: \"{}\" was successfully created",
-                todoEvent.getName());
+            save(notification, todoEvent);
+            notificationCounters.increment(notification.getEventType(), notification.getReceivedAt(), 1);
+            notificationFeed.publishAfterCommit(List.of(notification));
+            searchIndex.indexAfterCommit(List.of(notification));
+            recentNotifications.addAfterCommit(List.of(notification));
+            if (perEventLogging) {
+                logger.info("Saved created notification to database for todo id: {}", todoEvent.getId());
+
+                // Simulate notification processing
+                logger.info("Processing notification for todo: \"{}\" was successfully created",
+                    todoEvent.getName());
+            }
 
             // Here you would send actual notifications (email, SMS, push, etc.)
             createdNotificationsCounter.add(1);
-            logger.info("Notification processed successfully for todo id: {}", todoEvent.getId());
+            startupTimer.messageConsumed();
+            if (perEventLogging) {
+                logger.info("Notification processed successfully for todo id: {}", todoEvent.getId());
+            } else {
+                eventLogSummary.record("created", 1);
+                logger.debug("Handled todo created event for id: {}", todoEvent.getId());
+            }
 
         } catch (Exception e) {
             logger.error("Error processing todo created event: {}", e.getMessage(), e);
             throw e; // Rethrow to trigger requeue if needed
+        } finally {
+            latencyMetrics.recordHandling(startNanos, "created");
         }
     }
 
-    @RabbitListener(queues = RabbitMQConfig.DELETED_QUEUE_NAME)
+    @RabbitListener(queues = RabbitMQConfig.DELETED_QUEUE_NAME,
+        autoStartup = "#{!${notification.consumer.sharding.enabled:false}}")
+    @Transactional
     public void handleTodoDeletedEvent(TodoEvent todoEvent) {
+        long startNanos = System.nanoTime();
+        latencyMetrics.recordLag(todoEvent, "deleted");
         try {
-            logger.info("Received todo deleted event: id={}, name={}, timestamp={}",
-                todoEvent.getId(),
-                todoEvent.getName(),
-                todoEvent.getTimestamp());
+            boolean perEventLogging = eventLogSummary.isPerEvent();
+            if (perEventLogging) {
+                logger.info("Received todo deleted event: id={}, name={}, timestamp={}",
+                    todoEvent.getId(),
+                    todoEvent.getName(),
+                    todoEvent.getTimestamp());
+            }
+
+            if (eventDeduplicator.isDuplicate(todoEvent, "deleted")) {
+                logger.debug("Dropping redelivered todo deleted event {}", todoEvent.getEventId());
+                return;
+            }
 
             // Save notification to database
             Notification notification = new Notification(
@@ -78,20 +145,48 @@ public class NotificationConsumer {
                 "deleted",
                 todoEvent.getTimestamp()
             );
-            notificationRepository.save(notification);
-            logger.info("Saved deleted notification to database for todo id: {}", todoEvent.getId());
-
-            // Simulate notification processing
-            logger.info("Processing notification for todo: \"{}\" was successfully deleted",
-                todoEvent.getName());
+            save(notification, todoEvent);
+            notificationCounters.increment(notification.getEventType(), notification.getReceivedAt(), 1);
+            notificationFeed.publishAfterCommit(List.of(notification));
+            searchIndex.indexAfterCommit(List.of(notification));
+            recentNotifications.addAfterCommit(List.of(notification));
+            if (perEventLogging) {
+                logger.info("Saved deleted notification to database for todo id: {}", todoEvent.getId());
+
+                // Simulate notification processing
+                logger.info("Processing notification for todo: \"{}\" was successfully deleted",
+                    todoEvent.getName());
+            }
 
             // Here you would send actual notifications (email, SMS, push, etc.)
             deletedNotificationsCounter.add(1);
-            logger.info("Notification processed successfully for todo id: {}", todoEvent.getId());
+            startupTimer.messageConsumed();
+            if (perEventLogging) {
+                logger.info("Notification processed successfully for todo id: {}", todoEvent.getId());
+            } else {
+                eventLogSummary.record("deleted", 1);
+                logger.debug("Handled todo deleted event for id: {}", todoEvent.getId());
+            }
 
         } catch (Exception e) {
             logger.error("Error processing todo deleted event: {}", e.getMessage(), e);
             throw e; // Rethrow to trigger requeue if needed
+        } finally {
+            latencyMetrics.recordHandling(startNanos, "deleted");
+        }
+    }
+
+    private void save(Notification notification, TodoEvent todoEvent) {
+        if (eventDeduplicator.isEnabled()) {
+            notification.setEventId(todoEvent.getEventId());
+        }
+        try {
+            notificationRepository.save(notification);
+        } catch (DataIntegrityViolationException e) {
+            // Usually a concurrent redelivery that was stored first, the retry finds it and drops it
+            eventDeduplicator.recordSeen(Collections.singletonList(todoEvent.getEventId()));
+            throw e;
         }
+        eventDeduplicator.recordAfterCommit(Collections.singletonList(todoEvent.getEventId()));
     }
 }
@@ -1,30 +1,137 @@
 package com.dash0.examples.notificationservice;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/notifications")
 @CrossOrigin(origins = "*")
 public class NotificationController {
 
+    private static final int RECENT_NOTIFICATIONS = 50;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_ARCHIVE_PAGE_SIZE = 500;
+
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private NotificationCounters notificationCounters;
+
+    @Autowired
+    private NotificationHourlyCounterRepository hourlyCounterRepository;
+
+    @Autowired
+    private NotificationFeed notificationFeed;
+
+    @Autowired
+    private NotificationSearchIndex searchIndex;
+
+    @Autowired
+    private RecentNotifications recentNotifications;
+
+    // Served from the in-memory recent window when it is enabled and warm
     @GetMapping
     public List<Notification> getRecentNotifications() {
+        if (recentNotifications.isReady()) {
+            return recentNotifications.latest(RECENT_NOTIFICATIONS);
+        }
         return notificationRepository.findTop50ByOrderByReceivedAtDesc();
     }
 
+    // Full history, newest first in the same (receivedAt, id) order as GET /notifications; pass the
+    // receivedAt and id of the last notification of a page as beforeReceivedAt and beforeId for the next one
+    @GetMapping("/archive")
+    public ResponseEntity<List<Notification>> getArchivedNotifications(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeReceivedAt,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (limit <= 0 || limit > MAX_ARCHIVE_PAGE_SIZE || (beforeReceivedAt == null) != (beforeId == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (beforeReceivedAt == null) {
+            return ResponseEntity.ok(notificationRepository.findByOrderByReceivedAtDescIdDesc(Limit.of(limit)));
+        }
+        return ResponseEntity.ok(notificationRepository
+            .findByReceivedAtLessThanOrReceivedAtAndIdLessThanOrderByReceivedAtDescIdDesc(
+                beforeReceivedAt, beforeReceivedAt, beforeId, Limit.of(limit)));
+    }
+
+    // Pushes each new notification as it is persisted; EventSource clients resume via Last-Event-ID
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return notificationFeed.subscribe(lastEventId);
+    }
+
+    // Ranked substring, word-prefix and fuzzy search over todo names; a LIKE scan until the index is built
+    @GetMapping("/search")
+    public ResponseEntity<List<Notification>> searchNotifications(@RequestParam String q,
+                                                                  @RequestParam(defaultValue = "20") int limit) {
+        if (q.isBlank() || limit <= 0 || limit > MAX_SEARCH_RESULTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!searchIndex.isReady()) {
+            return ResponseEntity.ok(notificationRepository.findByTodoNameContainingIgnoreCaseOrderByIdDesc(
+                q.strip(), Limit.of(limit)));
+        }
+
+        List<Long> ids = searchIndex.search(q, limit);
+        Map<Long, Notification> notificationsById = new HashMap<>();
+        for (Notification notification : notificationRepository.findAllById(ids)) {
+            notificationsById.put(notification.getId(), notification);
+        }
+        // Keep the ranking; notifications deleted since they were indexed are skipped
+        List<Notification> notifications = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Notification notification = notificationsById.get(id);
+            if (notification != null) {
+                notifications.add(notification);
+            }
+        }
+        return ResponseEntity.ok(notifications);
+    }
+
     @GetMapping("/count")
     public long getNotificationCount() {
-        return notificationRepository.count();
+        return notificationCounters.total();
+    }
+
+    @GetMapping("/count/by-type")
+    public Map<String, Long> getNotificationCountByType() {
+        return notificationCounters.countsByEventType();
+    }
+
+    // Empty unless notification.counters.hourly.enabled=true
+    @GetMapping("/count/hourly")
+    public List<NotificationHourlyCounter> getHourlyNotificationCounts(@RequestParam(defaultValue = "24") int hours) {
+        LocalDateTime since = ZonedDateTime.now(ZoneId.of("Europe/Oslo")).toLocalDateTime()
+            .truncatedTo(ChronoUnit.HOURS)
+            .minusHours(Math.max(hours - 1, 0));
+        return hourlyCounterRepository.findByBucketStartGreaterThanEqualOrderByBucketStartAsc(since);
     }
 
     @DeleteMapping
+    @Transactional
     public void clearNotifications() {
-        notificationRepository.deleteAll();
+        // One set-based DELETE instead of loading and removing every entity
+        notificationRepository.deleteAllInBatch();
+        notificationCounters.reset();
+        searchIndex.clearAfterCommit();
+        recentNotifications.clearAfterCommit();
     }
 }
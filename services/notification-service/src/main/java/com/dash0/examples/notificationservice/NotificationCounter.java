@@ -0,0 +1,60 @@
+package com.dash0.examples.notificationservice;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Running notification count per event type. Each type is spread over a few slot rows so
+ * concurrent consumers rarely contend on the same row lock; readers sum the slots.
+ * Rows are maintained with upserts by {@link NotificationCounters}.
+ */
+@Entity
+@Table(name = "notification_counters")
+@IdClass(NotificationCounter.Key.class)
+public class NotificationCounter {
+
+    @Id
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Id
+    @Column(name = "slot", nullable = false)
+    private int slot;
+
+    @Column(name = "notification_count", nullable = false)
+    private long count;
+
+    public NotificationCounter() {
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public static class Key implements Serializable {
+        private String eventType;
+        private int slot;
+
+        public Key() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && slot == key.slot && Objects.equals(eventType, key.eventType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(eventType, slot);
+        }
+    }
+}
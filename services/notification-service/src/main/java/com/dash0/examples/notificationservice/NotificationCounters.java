@@ -0,0 +1,152 @@
+package com.dash0.examples.notificationservice;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Incrementally maintained notification counts, updated in the same transaction as the
+ * notification insert so reads never have to scan the notifications table.
+ */
+@Repository
+// The tables are created by Hibernate's schema update, which must run before the backfill
+@DependsOn("entityManagerFactory")
+public class NotificationCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationCounters.class);
+
+    private static final String INCREMENT_SQL =
+        "INSERT INTO notification_counters (event_type, slot, notification_count) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE notification_count = notification_count + ?";
+    private static final String INCREMENT_HOURLY_SQL =
+        "INSERT INTO notification_hourly_counters (event_type, bucket_start, notification_count) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE notification_count = notification_count + ?";
+    private static final String BACKFILL_SQL =
+        "INSERT INTO notification_counters (event_type, slot, notification_count) "
+            + "SELECT * FROM (SELECT n.event_type, 0 AS slot, n.total - COALESCE(c.total, 0) AS delta "
+            + "FROM (SELECT event_type, COUNT(*) AS total FROM notifications GROUP BY event_type) n "
+            + "LEFT JOIN (SELECT event_type, SUM(notification_count) AS total FROM notification_counters "
+            + "GROUP BY event_type) c ON c.event_type = n.event_type) d WHERE d.delta <> 0 "
+            + "ON DUPLICATE KEY UPDATE notification_count = notification_count + d.delta";
+    // Hourly counters are not decremented on delete, so only hours with missing counts are topped up
+    private static final String BACKFILL_HOURLY_SQL =
+        "INSERT INTO notification_hourly_counters (event_type, bucket_start, notification_count) "
+            + "SELECT * FROM (SELECT n.event_type, n.bucket_start, n.total - COALESCE(c.notification_count, 0) AS delta "
+            + "FROM (SELECT event_type, DATE_FORMAT(received_at, '%Y-%m-%d %H:00:00') AS bucket_start, COUNT(*) AS total "
+            + "FROM notifications GROUP BY 1, 2) n "
+            + "LEFT JOIN notification_hourly_counters c ON c.event_type = n.event_type AND c.bucket_start = n.bucket_start) d "
+            + "WHERE d.delta > 0 "
+            + "ON DUPLICATE KEY UPDATE notification_count = notification_count + d.delta";
+    private static final String BACKFILL_LOCK = "notification_counters_backfill";
+    private static final int BACKFILL_LOCK_TIMEOUT_SECONDS = 60;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int slots;
+    private final boolean hourlyEnabled;
+    private final boolean backfillEnabled;
+
+    public NotificationCounters(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${notification.counters.slots:8}") int slots,
+                                @Value("${notification.counters.hourly.enabled:false}") boolean hourlyEnabled,
+                                @Value("${notification.counters.backfill.enabled:true}") boolean backfillEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.slots = slots;
+        this.hourlyEnabled = hourlyEnabled;
+        this.backfillEnabled = backfillEnabled;
+    }
+
+    /**
+     * Brings the counters in line with the notifications table: per event type (and hour) the
+     * difference between the stored rows and the counted ones is added to slot 0. On first start
+     * this seeds the tables, afterwards the differences are zero, so it is safe to run on every
+     * start even if other replicas have been incrementing in the meantime. Replicas starting at
+     * the same time take turns through a MySQL named lock; concurrent writers on running replicas
+     * wait for the shared locks of the INSERT ... SELECT, so no insert is counted twice or missed.
+     * Runs before the listener containers start.
+     */
+    @PostConstruct
+    public void backfill() {
+        // Disabled for the CDS training run, which starts the context without a database
+        if (!backfillEnabled) {
+            return;
+        }
+        Integer seeded = transactionTemplate.execute(status -> {
+            // Named locks belong to the connection, which the transaction keeps for all statements
+            Integer locked = jdbcTemplate.queryForObject("SELECT GET_LOCK(?, ?)", Integer.class,
+                BACKFILL_LOCK, BACKFILL_LOCK_TIMEOUT_SECONDS);
+            if (locked == null || locked != 1) {
+                logger.warn("Another instance is backfilling notification counters, skipping");
+                return 0;
+            }
+            try {
+                int rows = jdbcTemplate.update(BACKFILL_SQL);
+                if (hourlyEnabled) {
+                    rows += jdbcTemplate.update(BACKFILL_HOURLY_SQL);
+                }
+                return rows;
+            } finally {
+                jdbcTemplate.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, BACKFILL_LOCK);
+            }
+        });
+        if (seeded != null && seeded > 0) {
+            logger.info("Backfilled {} notification counter rows from existing notifications", seeded);
+        }
+    }
+
+    /**
+     * Must be called inside the transaction that inserts the notifications being counted.
+     */
+    public void increment(String eventType, LocalDateTime receivedAt, long delta) {
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        jdbcTemplate.update(INCREMENT_SQL, eventType, slot, delta, delta);
+        if (hourlyEnabled) {
+            Timestamp bucketStart = Timestamp.valueOf(receivedAt.truncatedTo(ChronoUnit.HOURS));
+            jdbcTemplate.update(INCREMENT_HOURLY_SQL, eventType, bucketStart, delta, delta);
+        }
+    }
+
+    /**
+     * Removes deleted notifications from the per-type totals. Hourly counters are left as they
+     * are, they record what was received in each hour.
+     */
+    public void decrement(String eventType, long delta) {
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        jdbcTemplate.update(INCREMENT_SQL, eventType, slot, -delta, -delta);
+    }
+
+    public long total() {
+        Long total = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(SUM(notification_count), 0) FROM notification_counters", Long.class);
+        return total != null ? total : 0;
+    }
+
+    public Map<String, Long> countsByEventType() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        jdbcTemplate.query(
+            "SELECT event_type, SUM(notification_count) FROM notification_counters GROUP BY event_type ORDER BY event_type",
+            rs -> {
+                counts.put(rs.getString(1), rs.getLong(2));
+            });
+        return counts;
+    }
+
+    public void reset() {
+        jdbcTemplate.update("DELETE FROM notification_counters");
+        jdbcTemplate.update("DELETE FROM notification_hourly_counters");
+    }
+}
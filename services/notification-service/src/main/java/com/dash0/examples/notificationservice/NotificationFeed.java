@@ -0,0 +1,195 @@
+package com.dash0.examples.notificationservice;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-time fan-out of new notifications to SSE subscribers. Recent notifications are kept
+ * in a ring buffer so reconnecting clients resume from their Last-Event-ID without a DB query.
+ * Every subscriber has a bounded queue; a client that falls further behind than that is
+ * disconnected and catches up from the ring buffer when it reconnects.
+ * Event ids are sequence numbers local to this instance. They start at a base derived from the
+ * start time, so ids from before a restart (or from another instance) are always recognised and
+ * answered with a reset instead of being mistaken for entries of this ring.
+ */
+@Component
+public class NotificationFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationFeed.class);
+
+    private final FeedEntry[] ring;
+    private final int clientBufferSize;
+    private final long emitterTimeoutMs;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // At most sender-threads clients are written to at a time. Each subscriber has at most one
+    // drain task queued or running, so the queue never holds more tasks than there are subscribers.
+    private final ThreadPoolExecutor sender;
+    // Millisecond start time times 10^6: a restarted instance starts above every id it handed out
+    // before, unless it sent more than a million events per millisecond of uptime
+    private final long firstSequence = System.currentTimeMillis() * 1_000_000;
+
+    // Guards ring and nextSequence; a lock rather than a monitor so virtual threads do not pin
+    private final Lock ringLock = new ReentrantLock();
+    private long nextSequence = firstSequence;
+
+    public NotificationFeed(@Value("${notification.feed.buffer-size:1024}") int bufferSize,
+                            @Value("${notification.feed.client-buffer-size:256}") int clientBufferSize,
+                            @Value("${notification.feed.emitter-timeout:30m}") Duration emitterTimeout,
+                            @Value("${notification.feed.sender-threads:8}") int senderThreads) {
+        this.ring = new FeedEntry[bufferSize];
+        this.clientBufferSize = clientBufferSize;
+        this.emitterTimeoutMs = emitterTimeout.toMillis();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "notification-feed-sender-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.sender.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Publishes once the surrounding transaction commits, so subscribers never see rolled-back
+     * notifications. Outside a transaction the notifications are published immediately.
+     */
+    public void publishAfterCommit(List<Notification> notifications) {
+        AfterCommit.run(() -> publish(notifications));
+    }
+
+    public void publish(List<Notification> notifications) {
+        List<FeedEntry> entries = new ArrayList<>(notifications.size());
+        ringLock.lock();
+        try {
+            for (Notification notification : notifications) {
+                FeedEntry entry = new FeedEntry(nextSequence++, notification);
+                ring[(int) (entry.sequence % ring.length)] = entry;
+                entries.add(entry);
+            }
+        } finally {
+            ringLock.unlock();
+        }
+        for (Subscriber subscriber : subscribers) {
+            for (FeedEntry entry : entries) {
+                subscriber.offer(entry);
+            }
+        }
+    }
+
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+
+        boolean gap;
+        ringLock.lock();
+        try {
+            long oldestAvailable = Math.max(firstSequence, nextSequence - Math.min(ring.length, clientBufferSize));
+            long resumeFrom = lastEventId != null ? lastEventId + 1 : nextSequence;
+            // Behind the ring, or an id this instance never handed out (previous run, other replica)
+            gap = resumeFrom < oldestAvailable || resumeFrom > nextSequence;
+            // Replay and registration happen under the same lock, so no entry is missed or duplicated
+            for (long sequence = Math.max(resumeFrom, oldestAvailable); sequence < nextSequence; sequence++) {
+                subscriber.offer(ring[(int) (sequence % ring.length)]);
+            }
+            subscribers.add(subscriber);
+        } finally {
+            ringLock.unlock();
+        }
+
+        if (gap) {
+            // The client missed more than we can replay, it should reload the recent list
+            subscriber.offer(FeedEntry.RESET);
+        }
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdown();
+    }
+
+    private record FeedEntry(long sequence, Notification notification) {
+        private static final FeedEntry RESET = new FeedEntry(-1, null);
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<FeedEntry> queue = new ArrayBlockingQueue<>(clientBufferSize + 1);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(FeedEntry entry) {
+            if (!queue.offer(entry)) {
+                logger.debug("Disconnecting slow notification feed subscriber");
+                subscribers.remove(this);
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                FeedEntry entry;
+                while ((entry = queue.poll()) != null) {
+                    if (entry == FeedEntry.RESET) {
+                        emitter.send(SseEmitter.event().name("reset").data(""));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                            .id(Long.toString(entry.sequence()))
+                            .name("notification")
+                            .data(entry.notification()));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // Entries offered after the last poll but before the flag was cleared
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
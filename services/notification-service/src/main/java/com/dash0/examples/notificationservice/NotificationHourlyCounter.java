@@ -0,0 +1,62 @@
+package com.dash0.examples.notificationservice;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Notification count per event type and hour of {@code received_at}. Only maintained when
+ * {@code notification.counters.hourly.enabled=true}.
+ */
+@Entity
+@Table(name = "notification_hourly_counters")
+@IdClass(NotificationHourlyCounter.Key.class)
+public class NotificationHourlyCounter {
+
+    @Id
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Id
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "notification_count", nullable = false)
+    private long count;
+
+    public NotificationHourlyCounter() {
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public static class Key implements Serializable {
+        private String eventType;
+        private LocalDateTime bucketStart;
+
+        public Key() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key
+                && Objects.equals(eventType, key.eventType)
+                && Objects.equals(bucketStart, key.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(eventType, bucketStart);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.dash0.examples.notificationservice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationHourlyCounterRepository
+        extends JpaRepository<NotificationHourlyCounter, NotificationHourlyCounter.Key> {
+    List<NotificationHourlyCounter> findByBucketStartGreaterThanEqualOrderByBucketStartAsc(LocalDateTime since);
+}
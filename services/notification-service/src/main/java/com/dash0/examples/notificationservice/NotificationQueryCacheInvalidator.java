@@ -0,0 +1,40 @@
+package com.dash0.examples.notificationservice;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Notifications written with plain JDBC (batch inserts, retention deletes) bypass Hibernate, so
+ * its query cache is not invalidated for them. Writers call this instead; the eviction runs
+ * after commit so a concurrent query cannot re-cache the old result. Without the second-level
+ * cache these calls do nothing.
+ */
+@Component
+public class NotificationQueryCacheInvalidator {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public NotificationQueryCacheInvalidator(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void afterInsert() {
+        evictAfterCommit(cache -> cache.evictQueryRegion(JpaCacheConfig.RECENT_NOTIFICATIONS_REGION));
+    }
+
+    public void afterDelete() {
+        evictAfterCommit(cache -> {
+            cache.evictQueryRegion(JpaCacheConfig.RECENT_NOTIFICATIONS_REGION);
+            cache.evictEntityData(Notification.class);
+        });
+    }
+
+    private void evictAfterCommit(Consumer<Cache> eviction) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        AfterCommit.run(() -> eviction.accept(cache));
+    }
+}
@@ -1,11 +1,33 @@
 package com.dash0.examples.notificationservice;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    // Served from the query cache when it is enabled (jpa-cache profile)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = JpaCacheConfig.RECENT_NOTIFICATIONS_REGION)
+    })
     List<Notification> findTop50ByOrderByReceivedAtDesc();
+
+    // Warm-up of the recent notifications window and first archive page; same order as the window
+    List<Notification> findByOrderByReceivedAtDescIdDesc(Limit limit);
+
+    // Next archive page: keyset on (received_at, id), served by idx_notifications_received_at
+    // (InnoDB appends the primary key to secondary indexes)
+    List<Notification> findByReceivedAtLessThanOrReceivedAtAndIdLessThanOrderByReceivedAtDescIdDesc(
+        LocalDateTime receivedAt, LocalDateTime sameReceivedAt, Long id, Limit limit);
+
+    // LIKE '%name%' full scan, only used for search until the search index has been built
+    List<Notification> findByTodoNameContainingIgnoreCaseOrderByIdDesc(String todoName, Limit limit);
 }
@@ -0,0 +1,115 @@
+package com.dash0.examples.notificationservice;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletes notifications older than the configured retention in bounded chunks, each in its
+ * own short transaction, so no single statement holds locks on a large part of the table.
+ * Per-type counters are decremented for the deleted rows; hourly counters are kept as the
+ * compacted history of what was removed.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.retention.enabled", havingValue = "true")
+public class NotificationRetention {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetention.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationCounters notificationCounters;
+    private final NotificationQueryCacheInvalidator queryCacheInvalidator;
+    private final NotificationSearchIndex searchIndex;
+    private final RecentNotifications recentNotifications;
+    private final Duration maxAge;
+    private final int batchSize;
+    private final long pauseMs;
+
+    public NotificationRetention(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 NotificationCounters notificationCounters,
+                                 NotificationQueryCacheInvalidator queryCacheInvalidator,
+                                 NotificationSearchIndex searchIndex,
+                                 RecentNotifications recentNotifications,
+                                 @Value("${notification.retention.max-age:30d}") Duration maxAge,
+                                 @Value("${notification.retention.batch-size:5000}") int batchSize,
+                                 @Value("${notification.retention.pause-ms:100}") long pauseMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.notificationCounters = notificationCounters;
+        this.queryCacheInvalidator = queryCacheInvalidator;
+        this.searchIndex = searchIndex;
+        this.recentNotifications = recentNotifications;
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.retention.interval-ms:3600000}",
+        initialDelayString = "${notification.retention.initial-delay-ms:60000}")
+    public void purgeExpired() {
+        // received_at is stored as Europe/Oslo local time
+        LocalDateTime cutoff = ZonedDateTime.now(ZoneId.of("Europe/Oslo")).toLocalDateTime().minus(maxAge);
+        long total = 0;
+        try {
+            int deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> deleteChunk(cutoff));
+                total += deleted;
+                if (deleted == batchSize && pauseMs > 0) {
+                    // Give replication and concurrent writers room between chunks
+                    Thread.sleep(pauseMs);
+                }
+            } while (deleted == batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Notification retention run failed after deleting {} rows", total, e);
+            return;
+        }
+        if (total > 0) {
+            logger.info("Deleted {} notifications received before {}", total, cutoff);
+        }
+    }
+
+    private int deleteChunk(LocalDateTime cutoff) {
+        List<Long> ids = new ArrayList<>(batchSize);
+        Map<String, Long> countsByType = new HashMap<>();
+        // Range scan on idx_notifications_received_at, oldest first
+        jdbcTemplate.query(
+            "SELECT id, event_type FROM notifications WHERE received_at < ? ORDER BY received_at LIMIT ? FOR UPDATE",
+            rs -> {
+                ids.add(rs.getLong(1));
+                countsByType.merge(rs.getString(2), 1L, Long::sum);
+            },
+            Timestamp.valueOf(cutoff), batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.update("DELETE FROM notifications WHERE id IN (" + placeholders + ")", ids.toArray());
+        countsByType.forEach((eventType, count) -> notificationCounters.decrement(eventType, count));
+        queryCacheInvalidator.afterDelete();
+        searchIndex.removeAfterCommit(ids);
+        recentNotifications.removeAfterCommit(ids);
+        return ids.size();
+    }
+}
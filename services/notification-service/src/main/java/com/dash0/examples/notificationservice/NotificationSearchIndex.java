@@ -0,0 +1,209 @@
+package com.dash0.examples.notificationservice;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process search index over the todo names of stored notifications. Writers hand over new
+ * and deleted notifications, applied once their transaction commits; the index is rebuilt from
+ * MySQL on startup. Until the first rebuild has finished {@link #isReady()} is false and callers
+ * fall back to the database.
+ */
+@Component
+public class NotificationSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationSearchIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int rebuildBatchSize;
+    private final DoubleHistogram searchDuration;
+
+    private volatile TrigramIndex index = new TrigramIndex();
+    private volatile boolean ready;
+    // A lock rather than a monitor: TrigramIndex may park on its write lock, which would pin a virtual thread
+    private final Lock changeLock = new ReentrantLock();
+    // Changes applied while a rebuild is loading, replayed over the loaded rows; guarded by changeLock
+    private Map<Long, Optional<String>> changesDuringRebuild;
+    private boolean clearedDuringRebuild;
+
+    public NotificationSearchIndex(JdbcTemplate jdbcTemplate,
+                                   @Value("${notification.search.enabled:false}") boolean enabled,
+                                   @Value("${notification.search.rebuild-batch-size:10000}") int rebuildBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.rebuildBatchSize = rebuildBatchSize;
+
+        Meter meter = GlobalOpenTelemetry.get().getMeter("notification-search");
+        this.searchDuration = meter.histogramBuilder("notification.search.duration")
+            .setDescription("Latency of notification searches served from the in-process index")
+            .setUnit("ms")
+            .build();
+        if (enabled) {
+            meter.gaugeBuilder("notification.search.index.size")
+                .setDescription("Notifications in the search index")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(index.size()));
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Ids of the best matching notifications, best first.
+     */
+    public List<Long> search(String query, int limit) {
+        long startNanos = System.nanoTime();
+        List<Long> ids = index.search(query, limit).stream().map(TrigramIndex.Hit::id).toList();
+        searchDuration.record((System.nanoTime() - startNanos) / 1_000_000.0);
+        return ids;
+    }
+
+    public void indexAfterCommit(List<Notification> notifications) {
+        if (enabled) {
+            AfterCommit.run(() -> notifications.forEach(this::put));
+        }
+    }
+
+    public void removeAfterCommit(List<Long> ids) {
+        if (enabled) {
+            AfterCommit.run(() -> ids.forEach(this::remove));
+        }
+    }
+
+    public void clearAfterCommit() {
+        if (enabled) {
+            AfterCommit.run(this::clear);
+        }
+    }
+
+    private void put(Notification notification) {
+        // Ids are only missing for rows written without reading keys back, rebuilds pick those up
+        if (notification.getId() == null) {
+            return;
+        }
+        changeLock.lock();
+        try {
+            index.put(notification.getId(), notification.getTodoName());
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.put(notification.getId(), Optional.of(notification.getTodoName()));
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    private void remove(long id) {
+        changeLock.lock();
+        try {
+            index.remove(id);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.put(id, Optional.empty());
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    private void clear() {
+        changeLock.lock();
+        try {
+            index.clear();
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.clear();
+                clearedDuringRebuild = true;
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "notification-search-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Loads all notifications into a fresh index in primary key order, one short query per
+     * chunk, then swaps it in. Changes made meanwhile keep updating the live index and are
+     * replayed over the fresh one.
+     */
+    public void rebuild() {
+        changeLock.lock();
+        try {
+            changesDuringRebuild = new HashMap<>();
+            clearedDuringRebuild = false;
+        } finally {
+            changeLock.unlock();
+        }
+        long startNanos = System.nanoTime();
+        TrigramIndex fresh = new TrigramIndex();
+        try {
+            long lastId = 0;
+            int loaded;
+            do {
+                long[] maxId = {lastId};
+                int[] count = {0};
+                jdbcTemplate.query("SELECT id, todo_name FROM notifications WHERE id > ? ORDER BY id LIMIT ?", rs -> {
+                    maxId[0] = rs.getLong(1);
+                    fresh.put(maxId[0], rs.getString(2));
+                    count[0]++;
+                }, lastId, rebuildBatchSize);
+                lastId = maxId[0];
+                loaded = count[0];
+            } while (loaded == rebuildBatchSize);
+        } catch (Exception e) {
+            logger.error("Failed to rebuild the notification search index, searches keep using the database", e);
+            changeLock.lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                changeLock.unlock();
+            }
+            return;
+        }
+
+        changeLock.lock();
+        try {
+            if (clearedDuringRebuild) {
+                fresh.clear();
+            }
+            changesDuringRebuild.forEach((id, todoName) -> {
+                if (todoName.isPresent()) {
+                    fresh.put(id, todoName.get());
+                } else {
+                    fresh.remove(id);
+                }
+            });
+            changesDuringRebuild = null;
+            index = fresh;
+            ready = true;
+        } finally {
+            changeLock.unlock();
+        }
+        logger.info("Rebuilt notification search index with {} notifications in {} ms",
+            fresh.size(), (System.nanoTime() - startNanos) / 1_000_000);
+    }
+}
@@ -0,0 +1,85 @@
+package com.dash0.examples.notificationservice;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Polls the depth and consumer count of the queues this service consumes (passive declare)
+ * and exports them as gauges, so a consumer falling behind is visible before the broker hits
+ * its memory limits. How old the consumed events are is recorded by notification.event.lag.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.queues.monitor.enabled", havingValue = "true")
+public class QueueDepthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueueDepthMonitor.class);
+    private static final AttributeKey<String> QUEUE = AttributeKey.stringKey("queue");
+
+    private final AmqpAdmin amqpAdmin;
+    private final List<String> queueNames;
+    private final Map<String, QueueInformation> latest = new ConcurrentHashMap<>();
+
+    public QueueDepthMonitor(AmqpAdmin amqpAdmin,
+                             @Value("${notification.consumer.sharding.enabled:false}") boolean shardingEnabled,
+                             @Value("${notification.consumer.sharding.shards:4}") int shards,
+                             @Value("${notification.queues.limits.enabled:false}") boolean queueLimitsEnabled) {
+        this.amqpAdmin = amqpAdmin;
+        List<String> names = new ArrayList<>();
+        if (shardingEnabled) {
+            for (int shard = 0; shard < shards; shard++) {
+                names.add(RabbitMQConfig.SHARD_QUEUE_PREFIX + shard);
+            }
+        } else {
+            names.add(RabbitMQConfig.CREATED_QUEUE_NAME);
+            names.add(RabbitMQConfig.DELETED_QUEUE_NAME);
+        }
+        if (queueLimitsEnabled) {
+            names.add(RabbitMQConfig.DEAD_LETTER_QUEUE_NAME);
+        }
+        this.queueNames = List.copyOf(names);
+
+        // Gauges report the last poll, the callbacks never talk to the broker
+        Meter meter = GlobalOpenTelemetry.get().getMeter("notification-consumer");
+        meter.gaugeBuilder("rabbitmq.queue.depth")
+            .setDescription("Messages ready for delivery in the queue")
+            .ofLongs()
+            .buildWithCallback(measurement -> latest.forEach((queue, info) ->
+                measurement.record(info.getMessageCount(), Attributes.of(QUEUE, queue))));
+        meter.gaugeBuilder("rabbitmq.queue.consumers")
+            .setDescription("Consumers attached to the queue")
+            .ofLongs()
+            .buildWithCallback(measurement -> latest.forEach((queue, info) ->
+                measurement.record(info.getConsumerCount(), Attributes.of(QUEUE, queue))));
+    }
+
+    @Scheduled(fixedDelayString = "${notification.queues.monitor.interval-ms:5000}")
+    public void poll() {
+        for (String queueName : queueNames) {
+            try {
+                QueueInformation info = amqpAdmin.getQueueInfo(queueName);
+                if (info != null) {
+                    latest.put(queueName, info);
+                } else {
+                    latest.remove(queueName);
+                }
+            } catch (Exception e) {
+                logger.debug("Could not read depth of queue {}", queueName, e);
+            }
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package com.dash0.examples.notificationservice;
 
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 public class RabbitMQConfig {
 
@@ -16,6 +25,28 @@ public class RabbitMQConfig {
     public static final String DELETED_QUEUE_NAME = "todo.deleted";
     public static final String CREATED_ROUTING_KEY = "todo.created";
     public static final String DELETED_ROUTING_KEY = "todo.deleted";
+    public static final String BATCH_CONTAINER_FACTORY = "batchListenerContainerFactory";
+    public static final String SHARDED_EXCHANGE_NAME = "todo.events.sharded";
+    public static final String SHARD_QUEUE_PREFIX = "todo.events.shard.";
+    public static final String TODO_ID_HEADER = "x-todo-id";
+    public static final String DEAD_LETTER_EXCHANGE_NAME = "todo.events.dlx";
+    public static final String DEAD_LETTER_QUEUE_NAME = "todo.events.dead-letter";
+
+    private final boolean queueLimitsEnabled;
+    private final int queueMaxLength;
+    private final String queueOverflow;
+
+    /**
+     * Queue limits are part of the queue arguments, which RabbitMQ does not allow to change on an
+     * existing queue: enabling or changing them requires deleting the queues (or using a policy).
+     */
+    public RabbitMQConfig(@Value("${notification.queues.limits.enabled:false}") boolean queueLimitsEnabled,
+                          @Value("${notification.queues.max-length:100000}") int queueMaxLength,
+                          @Value("${notification.queues.overflow:reject-publish-dlx}") String queueOverflow) {
+        this.queueLimitsEnabled = queueLimitsEnabled;
+        this.queueMaxLength = queueMaxLength;
+        this.queueOverflow = queueOverflow;
+    }
 
     @Bean
     public TopicExchange exchange() {
@@ -23,34 +54,113 @@ public class RabbitMQConfig {
     }
 
     @Bean
+    @ConditionalOnProperty(name = "notification.consumer.sharding.enabled", havingValue = "false", matchIfMissing = true)
     public Queue createdQueue() {
-        return new Queue(CREATED_QUEUE_NAME, true);
+        return eventQueue(CREATED_QUEUE_NAME).build();
     }
 
     @Bean
+    @ConditionalOnProperty(name = "notification.consumer.sharding.enabled", havingValue = "false", matchIfMissing = true)
     public Queue deletedQueue() {
-        return new Queue(DELETED_QUEUE_NAME, true);
+        return eventQueue(DELETED_QUEUE_NAME).build();
     }
 
     @Bean
+    @ConditionalOnProperty(name = "notification.consumer.sharding.enabled", havingValue = "false", matchIfMissing = true)
     public Binding createdBinding(Queue createdQueue, TopicExchange exchange) {
         return BindingBuilder.bind(createdQueue).to(exchange).with(CREATED_ROUTING_KEY);
     }
 
     @Bean
+    @ConditionalOnProperty(name = "notification.consumer.sharding.enabled", havingValue = "false", matchIfMissing = true)
     public Binding deletedBinding(Queue deletedQueue, TopicExchange exchange) {
         return BindingBuilder.bind(deletedQueue).to(exchange).with(DELETED_ROUTING_KEY);
     }
 
+    /**
+     * Sharded topology: a consistent-hash exchange bound to the topic exchange hashes the
+     * todo id header, so all events for one todo land in the same shard queue. Each shard
+     * queue allows a single active consumer, which keeps per-todo ordering across pods.
+     */
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    @ConditionalOnProperty(name = "notification.consumer.sharding.enabled", havingValue = "true")
+    public Declarables shardedTopology(TopicExchange exchange,
+                                       @Value("${notification.consumer.sharding.shards:4}") int shards) {
+        CustomExchange shardedExchange = new CustomExchange(SHARDED_EXCHANGE_NAME, "x-consistent-hash", true, false,
+            Map.of("hash-header", TODO_ID_HEADER));
+
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(shardedExchange);
+        declarables.add(BindingBuilder.bind(shardedExchange).to(exchange).with(CREATED_ROUTING_KEY));
+        declarables.add(BindingBuilder.bind(shardedExchange).to(exchange).with(DELETED_ROUTING_KEY));
+        for (int shard = 0; shard < shards; shard++) {
+            Queue queue = eventQueue(SHARD_QUEUE_PREFIX + shard).singleActiveConsumer().build();
+            declarables.add(queue);
+            // For a consistent-hash exchange the binding key is the shard's weight
+            declarables.add(BindingBuilder.bind(queue).to(shardedExchange).with("1").noargs());
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * With queue limits enabled, messages over the limit (per the overflow policy) and messages
+     * that failed all listener retries are dead-lettered here instead of being lost. The
+     * dead-letter queue is bounded too and drops its oldest messages first.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "notification.queues.limits.enabled", havingValue = "true")
+    public Declarables deadLetterTopology(@Value("${notification.queues.dead-letter.max-length:100000}") int maxLength) {
+        FanoutExchange deadLetterExchange = new FanoutExchange(DEAD_LETTER_EXCHANGE_NAME, true, false);
+        Queue deadLetterQueue = QueueBuilder.durable(DEAD_LETTER_QUEUE_NAME)
+            .maxLength(maxLength)
+            .overflow(QueueBuilder.Overflow.dropHead)
+            .build();
+        return new Declarables(deadLetterExchange, deadLetterQueue,
+            BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange));
+    }
+
+    private QueueBuilder eventQueue(String name) {
+        QueueBuilder builder = QueueBuilder.durable(name);
+        if (queueLimitsEnabled) {
+            builder.maxLength(queueMaxLength)
+                .withArgument("x-overflow", queueOverflow)
+                .deadLetterExchange(DEAD_LETTER_EXCHANGE_NAME);
+        }
+        return builder;
+    }
+
+    // Messages are decoded by content type, so JSON and binary events can coexist during a rollout
+    @Bean
+    public MessageConverter messageConverter() {
+        Jackson2JsonMessageConverter jsonConverter = new Jackson2JsonMessageConverter();
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(jsonConverter);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, jsonConverter);
+        converter.addDelegate(TodoEventBinaryConverter.CONTENT_TYPE, new TodoEventBinaryConverter());
+        return converter;
     }
 
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(jsonMessageConverter());
+        rabbitTemplate.setMessageConverter(messageConverter());
         return rabbitTemplate;
     }
+
+    @Bean(name = BATCH_CONTAINER_FACTORY)
+    @ConditionalOnProperty(name = "notification.consumer.batch.enabled", havingValue = "true")
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${notification.consumer.batch.size:100}") int batchSize,
+            @Value("${notification.consumer.batch.linger-ms:200}") long lingerMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        // A partial batch is delivered once no new message arrives within the linger time
+        factory.setReceiveTimeout(lingerMs);
+        factory.setPrefetchCount(Math.max(batchSize, 1));
+        return factory;
+    }
 }
@@ -0,0 +1,175 @@
+package com.dash0.examples.notificationservice;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hot tier for GET /notifications: a fixed-size ring of the most recently stored notifications,
+ * warmed from MySQL on startup and appended to as writers commit. Older notifications are simply
+ * overwritten and stay reachable through the table (the archive endpoint).
+ * Writers claim a sequence number and CAS their entry into its slot, readers walk the last
+ * capacity sequences without taking a lock. Like the feed, the ring only sees what this instance
+ * consumed, so it is meant for a single consumer instance.
+ */
+@Component
+public class RecentNotifications {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentNotifications.class);
+
+    // Same order as findTop50ByOrderByReceivedAtDesc, ids break ties between equal timestamps
+    private static final Comparator<Notification> NEWEST_FIRST = Comparator
+        .comparing(Notification::getReceivedAt)
+        .thenComparing(Notification::getId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .reversed();
+
+    private final NotificationRepository notificationRepository;
+    private final boolean enabled;
+    private final int capacity;
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private volatile boolean warmed;
+
+    public RecentNotifications(NotificationRepository notificationRepository,
+                               @Value("${notification.recent.enabled:false}") boolean enabled,
+                               @Value("${notification.recent.capacity:256}") int capacity) {
+        this.notificationRepository = notificationRepository;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(enabled ? capacity : 0);
+
+        if (enabled) {
+            GlobalOpenTelemetry.get().getMeter("notification-recent")
+                .gaugeBuilder("notification.recent.size")
+                .setDescription("Notifications held in the in-memory recent window")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(size()));
+        }
+    }
+
+    /**
+     * Runs before the listener containers start, so no writer races the warm-up. If the database
+     * is not reachable yet the ring is served once it has filled up from new notifications.
+     */
+    @PostConstruct
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<Notification> newest = notificationRepository.findByOrderByReceivedAtDescIdDesc(Limit.of(capacity));
+            for (int i = newest.size() - 1; i >= 0; i--) {
+                add(newest.get(i));
+            }
+            warmed = true;
+            logger.info("Warmed recent notifications window with {} notifications", newest.size());
+        } catch (Exception e) {
+            logger.warn("Could not warm recent notifications window, reading from the database until it fills", e);
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && (warmed || nextSequence.get() >= capacity);
+    }
+
+    /**
+     * Newest notifications first, at most limit (and at most capacity) of them.
+     */
+    public List<Notification> latest(int limit) {
+        long end = nextSequence.get();
+        List<Notification> notifications = new ArrayList<>(Math.min(capacity, (int) end));
+        for (long sequence = end - 1; sequence >= Math.max(0, end - capacity); sequence--) {
+            Slot slot = slots.get(index(sequence));
+            // Skips slots still being written and slots already taken over by a newer lap
+            if (slot != null && slot.sequence() == sequence) {
+                notifications.add(slot.notification());
+            }
+        }
+        // Concurrent consumers can commit slightly out of received_at order
+        notifications.sort(NEWEST_FIRST);
+        return notifications.size() > limit ? notifications.subList(0, limit) : notifications;
+    }
+
+    public void addAfterCommit(List<Notification> notifications) {
+        if (enabled) {
+            AfterCommit.run(() -> notifications.forEach(this::add));
+        }
+    }
+
+    public void removeAfterCommit(Collection<Long> ids) {
+        if (enabled) {
+            Set<Long> removed = new HashSet<>(ids);
+            AfterCommit.run(() -> remove(removed));
+        }
+    }
+
+    public void clearAfterCommit() {
+        if (enabled) {
+            AfterCommit.run(this::clear);
+        }
+    }
+
+    private void add(Notification notification) {
+        long sequence = nextSequence.getAndIncrement();
+        Slot slot = new Slot(sequence, notification);
+        int index = index(sequence);
+        Slot current;
+        do {
+            current = slots.get(index);
+            // A writer from a later lap got here first, this entry is already too old to keep
+            if (current != null && current.sequence() > sequence) {
+                return;
+            }
+        } while (!slots.compareAndSet(index, current, slot));
+    }
+
+    private void remove(Set<Long> ids) {
+        for (int i = 0; i < capacity; i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && ids.contains(slot.notification().getId())) {
+                slots.compareAndSet(i, slot, null);
+            }
+        }
+    }
+
+    private void clear() {
+        // Notifications committed after the delete may already be in the ring, keep those
+        long end = nextSequence.get();
+        for (int i = 0; i < capacity; i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.sequence() < end) {
+                slots.compareAndSet(i, slot, null);
+            }
+        }
+    }
+
+    private int size() {
+        int size = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (slots.get(i) != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    private record Slot(long sequence, Notification notification) {
+    }
+}
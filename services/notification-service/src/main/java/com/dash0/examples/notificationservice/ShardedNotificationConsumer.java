@@ -0,0 +1,73 @@
+package com.dash0.examples.notificationservice;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumes the shard queues declared by {@link RabbitMQConfig#shardedTopology}. The shards are
+ * spread round-robin over {@code concurrency} listener containers with a single consumer each
+ * (by default one per shard), so events for one todo are handled in order while different
+ * shards run in parallel. Handling is delegated to {@link NotificationConsumer}, whose own queue
+ * listeners stay stopped in this mode.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.consumer.sharding.enabled", havingValue = "true")
+public class ShardedNotificationConsumer implements RabbitListenerConfigurer {
+
+    private final NotificationConsumer notificationConsumer;
+    private final MessageConverter messageConverter;
+    private final int shards;
+    private final int concurrency;
+
+    public ShardedNotificationConsumer(NotificationConsumer notificationConsumer,
+                                       MessageConverter messageConverter,
+                                       @Value("${notification.consumer.sharding.shards:4}") int shards,
+                                       @Value("${notification.consumer.sharding.concurrency:${notification.consumer.sharding.shards:4}}") int concurrency) {
+        this.notificationConsumer = notificationConsumer;
+        this.messageConverter = messageConverter;
+        this.shards = shards;
+        this.concurrency = Math.max(1, Math.min(concurrency, shards));
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        for (int worker = 0; worker < concurrency; worker++) {
+            List<String> queueNames = new ArrayList<>();
+            for (int shard = worker; shard < shards; shard += concurrency) {
+                queueNames.add(RabbitMQConfig.SHARD_QUEUE_PREFIX + shard);
+            }
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+            endpoint.setId("notification-shard-worker-" + worker);
+            endpoint.setQueueNames(queueNames.toArray(String[]::new));
+            // A single consumer per container is what preserves per-todo ordering: each shard
+            // queue is read by exactly one thread in this pod (and one pod, single-active-consumer)
+            endpoint.setConcurrency("1");
+            endpoint.setMessageListener(this::onMessage);
+            registrar.registerEndpoint(endpoint);
+        }
+    }
+
+    private void onMessage(Message message) {
+        TodoEvent todoEvent = (TodoEvent) messageConverter.fromMessage(message);
+        // The exchange-to-exchange binding keeps the original topic routing key
+        String routingKey = message.getMessageProperties().getReceivedRoutingKey();
+
+        if (RabbitMQConfig.CREATED_ROUTING_KEY.equals(routingKey)) {
+            notificationConsumer.handleTodoCreatedEvent(todoEvent);
+        } else if (RabbitMQConfig.DELETED_ROUTING_KEY.equals(routingKey)) {
+            notificationConsumer.handleTodoDeletedEvent(todoEvent);
+        } else {
+            throw new MessageConversionException("Unexpected routing key on shard queue: " + routingKey);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.dash0.examples.notificationservice;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures startup from JVM start: until the application is ready and until the first todo
+ * event has been consumed. Used to compare the plain and the CDS image (Dockerfile.cds).
+ */
+@Component
+public class StartupTimer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimer.class);
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final AtomicBoolean firstMessageConsumed = new AtomicBoolean();
+    private volatile long readyMs = -1;
+    private volatile long firstMessageMs = -1;
+
+    public StartupTimer() {
+        Meter meter = GlobalOpenTelemetry.get().getMeter("notification-startup");
+        meter.gaugeBuilder("app.startup.ready.time")
+            .setDescription("Time from JVM start until the application was ready")
+            .setUnit("ms")
+            .ofLongs()
+            .buildWithCallback(measurement -> {
+                if (readyMs >= 0) {
+                    measurement.record(readyMs);
+                }
+            });
+        meter.gaugeBuilder("app.startup.first_message.time")
+            .setDescription("Time from JVM start until the first todo event was consumed")
+            .setUnit("ms")
+            .ofLongs()
+            .buildWithCallback(measurement -> {
+                if (firstMessageMs >= 0) {
+                    measurement.record(firstMessageMs);
+                }
+            });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyMs = System.currentTimeMillis() - jvmStartMillis;
+        logger.info("Application ready {} ms after JVM start", readyMs);
+    }
+
+    public void messageConsumed() {
+        if (!firstMessageConsumed.get() && firstMessageConsumed.compareAndSet(false, true)) {
+            firstMessageMs = System.currentTimeMillis() - jvmStartMillis;
+            logger.info("First todo event consumed {} ms after JVM start", firstMessageMs);
+        }
+    }
+}
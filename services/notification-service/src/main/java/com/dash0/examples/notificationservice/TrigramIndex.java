@@ -0,0 +1,428 @@
+package com.dash0.examples.notificationservice;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over short texts keyed by id, for substring, word-prefix and fuzzy
+ * search. Every text is indexed by its character trigrams plus two word-start grams per word,
+ * so one- and two-character queries match word prefixes. A query term narrows the candidates to
+ * the intersection of its sorted posting lists and the candidates are verified against the
+ * stored text; a term without exact matches falls back to trigram overlap and edit distance.
+ * Reads run concurrently, writes take an exclusive lock.
+ * The todo service has its own copy (the services share no code), keep both in sync.
+ */
+final class TrigramIndex {
+
+    private static final char WORD_START = '\u0001';
+    private static final double SCORE_WORD = 3.0;
+    private static final double SCORE_WORD_PREFIX = 2.0;
+    private static final double SCORE_SUBSTRING = 1.0;
+    private static final double SCORE_FUZZY = 0.5;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_INTERSECTED_LISTS = 3;
+    // Bounds the work for very broad queries, which are ranked among their newest matches only
+    private static final int MAX_VERIFIED_CANDIDATES = 20_000;
+    // Worst hit first
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).thenComparingLong(Hit::id);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Normalized texts, guarded by lock
+    private final Map<Long, String> texts = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    void put(long id, String text) {
+        String normalized = normalize(text);
+        lock.writeLock().lock();
+        try {
+            String previous = texts.put(id, normalized);
+            if (normalized.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                removePostings(id, previous);
+            }
+            for (long gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            String previous = texts.remove(id);
+            if (previous != null) {
+                removePostings(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            texts.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return texts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} ids whose text matches every whitespace-separated term of the
+     * query, best first: whole-word matches rank above word-prefix, substring and fuzzy matches,
+     * ties go to the higher (newer) id. Only the newest {@value #MAX_VERIFIED_CANDIDATES}
+     * candidates are verified.
+     */
+    List<Hit> search(String query, int limit) {
+        String[] terms = normalize(query).split("\\s+");
+        if (terms.length == 0 || terms[0].isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            // Candidates match every term that has exact matches; terms without any are matched
+            // fuzzily, and only generate candidates themselves when no term matches exactly
+            long[] candidates = null;
+            boolean[] fuzzy = new boolean[terms.length];
+            String longestFuzzyTerm = null;
+            for (int i = 0; i < terms.length; i++) {
+                long[] exact = intersect(termGrams(terms[i]));
+                if (exact.length == 0) {
+                    if (terms[i].length() < MIN_FUZZY_LENGTH) {
+                        return List.of();
+                    }
+                    fuzzy[i] = true;
+                    if (longestFuzzyTerm == null || terms[i].length() > longestFuzzyTerm.length()) {
+                        longestFuzzyTerm = terms[i];
+                    }
+                } else {
+                    candidates = candidates == null ? exact : intersect(candidates, candidates.length, exact, exact.length);
+                    if (candidates.length == 0) {
+                        return List.of();
+                    }
+                }
+            }
+            if (candidates == null) {
+                candidates = fuzzyCandidates(longestFuzzyTerm);
+            }
+
+            // Newest first, so the scan can stop once the top hits all have the best possible score
+            double bestPossible = SCORE_WORD * terms.length;
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, RANKING);
+            int oldest = Math.max(0, candidates.length - MAX_VERIFIED_CANDIDATES);
+            for (int c = candidates.length - 1; c >= oldest; c--) {
+                if (top.size() == limit && top.peek().score() == bestPossible) {
+                    break;
+                }
+                long id = candidates[c];
+                String text = texts.get(id);
+                double score = 0;
+                for (int i = 0; i < terms.length; i++) {
+                    double termScore = fuzzy[i] ? fuzzyScore(terms[i], text) : score(terms[i], text);
+                    if (termScore == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += termScore;
+                }
+                // Older candidates only displace a strictly lower score
+                if (score > 0 && (top.size() < limit || score > top.peek().score())) {
+                    top.add(new Hit(id, score));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                hits.add(top.poll());
+            }
+            return hits.reversed();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        return Normalizer.normalize(text.strip(), Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ids sharing enough trigrams with the term to be within its edit budget; one edit changes
+     * at most three trigrams. Such an id must be in one of the shortest lists, which are the
+     * only ones scanned, the rest are probed.
+     */
+    private long[] fuzzyCandidates(String term) {
+        long[] grams = termGrams(term);
+        int required = Math.max(1, grams.length - 3 * maxEdits(term));
+        List<Postings> lists = new ArrayList<>(grams.length);
+        for (long gram : grams) {
+            lists.add(postings.getOrDefault(gram, Postings.EMPTY));
+        }
+        lists.sort(Comparator.comparingInt(Postings::size));
+
+        int scanned = lists.size() - required + 1;
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int i = 0; i < scanned; i++) {
+            Postings list = lists.get(i);
+            for (int j = 0; j < list.size; j++) {
+                counts.merge(list.ids[j], 1, Integer::sum);
+            }
+        }
+        return counts.entrySet().stream()
+            .filter(entry -> {
+                int matched = entry.getValue();
+                for (int i = scanned; i < lists.size() && matched < required; i++) {
+                    if (lists.get(i).contains(entry.getKey())) {
+                        matched++;
+                    }
+                }
+                return matched >= required;
+            })
+            .mapToLong(Map.Entry::getKey)
+            .sorted()
+            .toArray();
+    }
+
+    private long[] intersect(long[] grams) {
+        Postings[] lists = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            Postings list = postings.get(grams[i]);
+            if (list == null) {
+                return new long[0];
+            }
+            lists[i] = list;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(Postings::size));
+
+        // The shortest lists narrow the candidates the most; the rest is left to verification
+        long[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+        for (int i = 1; i < Math.min(lists.length, MAX_INTERSECTED_LISTS) && result.length > 0; i++) {
+            result = intersect(result, result.length, lists[i].ids, lists[i].size);
+        }
+        return result;
+    }
+
+    // Sorted prefixes of both arrays; merges lists of similar size, probes the larger one otherwise
+    private static long[] intersect(long[] a, int aSize, long[] b, int bSize) {
+        boolean aSmaller = aSize <= bSize;
+        long[] small = aSmaller ? a : b;
+        long[] large = aSmaller ? b : a;
+        int smallSize = aSmaller ? aSize : bSize;
+        int largeSize = aSmaller ? bSize : aSize;
+        long[] result = new long[smallSize];
+        int size = 0;
+        if ((long) smallSize * 16 < largeSize) {
+            for (int i = 0; i < smallSize; i++) {
+                if (Arrays.binarySearch(large, 0, largeSize, small[i]) >= 0) {
+                    result[size++] = small[i];
+                }
+            }
+        } else {
+            int j = 0;
+            for (int i = 0; i < smallSize && j < largeSize; i++) {
+                while (j < largeSize && large[j] < small[i]) {
+                    j++;
+                }
+                if (j < largeSize && large[j] == small[i]) {
+                    result[size++] = small[i];
+                }
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static double score(String term, String text) {
+        double best = 0;
+        for (int from = text.indexOf(term); from >= 0; from = text.indexOf(term, from + 1)) {
+            boolean wordStart = from == 0 || Character.isWhitespace(text.charAt(from - 1));
+            int end = from + term.length();
+            boolean wordEnd = end == text.length() || Character.isWhitespace(text.charAt(end));
+            if (wordStart && wordEnd) {
+                return SCORE_WORD;
+            }
+            if (wordStart) {
+                best = SCORE_WORD_PREFIX;
+            } else if (term.length() >= 3) {
+                best = Math.max(best, SCORE_SUBSTRING);
+            }
+        }
+        return best;
+    }
+
+    private static double fuzzyScore(String term, String text) {
+        int maxEdits = maxEdits(term);
+        int bestEdits = maxEdits + 1;
+        for (String word : text.split("\\s+")) {
+            bestEdits = Math.min(bestEdits, editDistance(term, word, maxEdits));
+            if (word.length() > term.length()) {
+                // Prefix of a longer word, for queries typed while the word is incomplete
+                bestEdits = Math.min(bestEdits, editDistance(term, word.substring(0, term.length()), maxEdits));
+            }
+        }
+        return bestEdits <= maxEdits ? SCORE_FUZZY / bestEdits : 0;
+    }
+
+    private static int maxEdits(String term) {
+        return term.length() <= 5 ? 1 : 2;
+    }
+
+    // Levenshtein distance, or max + 1 once it is known to exceed max
+    private static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    private void removePostings(long id, String text) {
+        for (long gram : grams(text)) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static long[] termGrams(String term) {
+        if (term.length() == 1) {
+            return new long[] {gram(WORD_START, WORD_START, term.charAt(0))};
+        }
+        if (term.length() == 2) {
+            return new long[] {gram(WORD_START, term.charAt(0), term.charAt(1))};
+        }
+        long[] grams = new long[term.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = gram(term.charAt(i), term.charAt(i + 1), term.charAt(i + 2));
+        }
+        return distinct(grams, grams.length);
+    }
+
+    private static long[] grams(String text) {
+        long[] grams = new long[text.length() * 3];
+        int count = 0;
+        for (int i = 0; i + 2 < text.length(); i++) {
+            grams[count++] = gram(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2));
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || (i > 0 && !Character.isWhitespace(text.charAt(i - 1)))) {
+                continue;
+            }
+            grams[count++] = gram(WORD_START, WORD_START, c);
+            if (i + 1 < text.length() && !Character.isWhitespace(text.charAt(i + 1))) {
+                grams[count++] = gram(WORD_START, c, text.charAt(i + 1));
+            }
+        }
+        return distinct(grams, count);
+    }
+
+    private static long[] distinct(long[] grams, int count) {
+        Arrays.sort(grams, 0, count);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (size == 0 || grams[size - 1] != grams[i]) {
+                grams[size++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, size);
+    }
+
+    private static long gram(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    record Hit(long id, double score) {
+    }
+
+    // Sorted ids; ids mostly arrive in ascending order, so adds are appends
+    private static final class Postings {
+        private static final Postings EMPTY = new Postings();
+
+        private long[] ids = new long[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0) {
+                    return;
+                }
+                insert(-index - 1, id);
+            } else {
+                insert(size, id);
+            }
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void insert(int index, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.dash0.examples.notificationservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class EventDeduplicatorTests {
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+	@Test
+	void unseenEventIsNewWithoutAQuery() {
+		EventDeduplicator deduplicator = new EventDeduplicator(jdbcTemplate, true, 100, 0.01);
+
+		assertThat(deduplicator.isDuplicate(event(UUID.randomUUID()), "created")).isFalse();
+		assertThat(deduplicator.isDuplicate(event(null), "created")).isFalse();
+		verifyNoInteractions(jdbcTemplate);
+	}
+
+	@Test
+	void filterHitIsConfirmedAgainstTheDatabase() {
+		EventDeduplicator deduplicator = new EventDeduplicator(jdbcTemplate, true, 100, 0.01);
+		UUID stored = UUID.randomUUID();
+		UUID falsePositive = UUID.randomUUID();
+		deduplicator.recordAfterCommit(List.of(stored, falsePositive));
+		when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(Object[].class)))
+			.thenReturn(1)
+			.thenReturn(0);
+
+		assertThat(deduplicator.isDuplicate(event(stored), "created")).isTrue();
+		assertThat(deduplicator.isDuplicate(event(falsePositive), "created")).isFalse();
+	}
+
+	@Test
+	void idsOlderThanTwoWindowsAreForgotten() {
+		EventDeduplicator deduplicator = new EventDeduplicator(jdbcTemplate, true, 2, 0.01);
+		UUID oldest = UUID.randomUUID();
+		UUID previousWindow = UUID.randomUUID();
+		deduplicator.recordSeen(List.of(oldest, UUID.randomUUID()));
+		deduplicator.recordSeen(List.of(previousWindow, UUID.randomUUID()));
+		deduplicator.recordSeen(List.of(UUID.randomUUID()));
+		when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(Object[].class))).thenReturn(1);
+
+		assertThat(deduplicator.isDuplicate(event(oldest), "created")).isFalse();
+		assertThat(deduplicator.isDuplicate(event(previousWindow), "created")).isTrue();
+	}
+
+	@Test
+	void repeatsWithinABatchAreDropped() {
+		EventDeduplicator deduplicator = new EventDeduplicator(jdbcTemplate, true, 100, 0.01);
+		UUID repeated = UUID.randomUUID();
+		TodoEvent first = event(repeated);
+		TodoEvent other = event(UUID.randomUUID());
+		TodoEvent withoutId = event(null);
+
+		List<TodoEvent> fresh = deduplicator.removeDuplicates(List.of(first, event(repeated), other, withoutId), "created");
+
+		assertThat(fresh).containsExactly(first, other, withoutId);
+		verifyNoInteractions(jdbcTemplate);
+	}
+
+	@Test
+	void retryAfterConstraintViolationDropsTheStoredEvents() {
+		EventDeduplicator deduplicator = new EventDeduplicator(jdbcTemplate, true, 100, 0.01);
+		UUID storedConcurrently = UUID.randomUUID();
+		UUID notStored = UUID.randomUUID();
+		// The failed insert of the whole batch marks its ids as seen
+		deduplicator.recordSeen(List.of(storedConcurrently, notStored));
+		doAnswer(invocation -> {
+			ResultSet rs = mock(ResultSet.class);
+			when(rs.getBytes(1)).thenReturn(EventDeduplicator.toBytes(storedConcurrently));
+			invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+			return null;
+		}).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+		TodoEvent retried = event(notStored);
+		TodoEvent unseen = event(UUID.randomUUID());
+		List<TodoEvent> fresh = deduplicator.removeDuplicates(List.of(event(storedConcurrently), retried, unseen), "created");
+
+		assertThat(fresh).containsExactly(retried, unseen);
+		verify(jdbcTemplate).query(eq("SELECT event_id FROM notifications WHERE event_id IN (?,?)"),
+			any(RowCallbackHandler.class), any(Object[].class));
+	}
+
+	@Test
+	void disabledKeepsEverything() {
+		EventDeduplicator deduplicator = new EventDeduplicator(jdbcTemplate, false, 100, 0.01);
+		UUID eventId = UUID.randomUUID();
+		deduplicator.recordSeen(List.of(eventId));
+		List<TodoEvent> events = List.of(event(eventId), event(eventId));
+
+		assertThat(deduplicator.isDuplicate(event(eventId), "created")).isFalse();
+		assertThat(deduplicator.removeDuplicates(events, "created")).isSameAs(events);
+		verifyNoInteractions(jdbcTemplate);
+	}
+
+	private static TodoEvent event(UUID eventId) {
+		TodoEvent event = new TodoEvent(1L, "Buy groceries", "2025-03-01T10:15:30Z");
+		event.setEventId(eventId);
+		return event;
+	}
+}
@@ -0,0 +1,132 @@
+package com.dash0.examples.notificationservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentNotificationsTests {
+
+	private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+	@Test
+	void newestFirstWithIdsBreakingTies() {
+		RecentNotifications recent = new RecentNotifications(null, true, 8);
+
+		recent.addAfterCommit(List.of(notification(1, 0), notification(3, 1), notification(2, 1)));
+
+		assertThat(ids(recent.latest(10))).containsExactly(3L, 2L, 1L);
+		assertThat(ids(recent.latest(2))).containsExactly(3L, 2L);
+	}
+
+	@Test
+	void laterLapsOverwriteTheOldestEntries() {
+		RecentNotifications recent = new RecentNotifications(null, true, 4);
+		assertThat(recent.isReady()).isFalse();
+
+		for (long id = 1; id <= 6; id++) {
+			recent.addAfterCommit(List.of(notification(id, id)));
+		}
+
+		assertThat(ids(recent.latest(10))).containsExactly(6L, 5L, 4L, 3L);
+		// Full after a lap even without a warm-up
+		assertThat(recent.isReady()).isTrue();
+	}
+
+	@Test
+	void concurrentWritersNeverLeaveAnOlderLapInASlot() throws InterruptedException {
+		int capacity = 64;
+		RecentNotifications recent = new RecentNotifications(null, true, capacity);
+		List<Thread> writers = new ArrayList<>();
+		CountDownLatch start = new CountDownLatch(1);
+		for (int w = 0; w < 8; w++) {
+			long firstId = w * 10_000L;
+			writers.add(Thread.ofPlatform().start(() -> {
+				awaitQuietly(start);
+				for (long id = firstId; id < firstId + 2_000; id++) {
+					recent.addAfterCommit(List.of(notification(id, 0)));
+				}
+			}));
+		}
+		start.countDown();
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		// Every slot holds its entry from the last lap, a stale writer did not overwrite it
+		assertThat(recent.latest(capacity)).hasSize(capacity);
+	}
+
+	@Test
+	void removeDropsOnlyTheGivenIds() {
+		RecentNotifications recent = new RecentNotifications(null, true, 8);
+		recent.addAfterCommit(List.of(notification(1, 1), notification(2, 2), notification(3, 3)));
+
+		recent.removeAfterCommit(List.of(2L, 42L));
+
+		assertThat(ids(recent.latest(10))).containsExactly(3L, 1L);
+	}
+
+	@Test
+	void clearKeepsNotificationsAddedAfterIt() throws InterruptedException {
+		RecentNotifications recent = new RecentNotifications(null, true, 512);
+		CountDownLatch halfWritten = new CountDownLatch(1);
+		CountDownLatch cleared = new CountDownLatch(1);
+		Thread writer = Thread.ofPlatform().start(() -> {
+			for (long id = 1; id < 400; id++) {
+				recent.addAfterCommit(List.of(notification(id, id)));
+				if (id == 200) {
+					halfWritten.countDown();
+				}
+			}
+			awaitQuietly(cleared);
+			recent.addAfterCommit(List.of(notification(400, 400)));
+		});
+
+		halfWritten.await();
+		recent.clearAfterCommit();
+		cleared.countDown();
+		writer.join();
+
+		// Whatever the clear caught, the rest is an unbroken run up to the newest notification
+		List<Long> ids = ids(recent.latest(512));
+		assertThat(ids).isNotEmpty().first().isEqualTo(400L);
+		assertThat(ids).hasSizeLessThanOrEqualTo(200);
+		for (int i = 1; i < ids.size(); i++) {
+			assertThat(ids.get(i)).isEqualTo(ids.get(i - 1) - 1);
+		}
+	}
+
+	@Test
+	void disabledHoldsNothing() {
+		RecentNotifications recent = new RecentNotifications(null, false, 8);
+
+		recent.addAfterCommit(List.of(notification(1, 1)));
+
+		assertThat(recent.isReady()).isFalse();
+		assertThat(recent.latest(10)).isEmpty();
+	}
+
+	private static Notification notification(long id, long minutes) {
+		Notification notification = new Notification(id, "todo " + id, "created", null);
+		notification.setId(id);
+		notification.setReceivedAt(START.plusMinutes(minutes));
+		return notification;
+	}
+
+	private static List<Long> ids(List<Notification> notifications) {
+		return notifications.stream().map(Notification::getId).toList();
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
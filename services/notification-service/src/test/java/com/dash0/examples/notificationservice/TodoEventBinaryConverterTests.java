@@ -0,0 +1,93 @@
+package com.dash0.examples.notificationservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TodoEventBinaryConverterTests {
+
+	private final TodoEventBinaryConverter converter = new TodoEventBinaryConverter();
+
+	@Test
+	void decodesTheLayoutTheTodoServiceWrites() {
+		byte[] name = "Kjøp melk ☕".getBytes(StandardCharsets.UTF_8);
+		UUID eventId = UUID.fromString("7b0c6a0e-3f1d-4c5e-9a8b-2d4f6e8a0c1b");
+		ByteBuffer body = ByteBuffer.allocate(2 + 8 + 8 + 4 + name.length + 16)
+			.put((byte) 1)
+			.put((byte) 0b1111)
+			.putLong(42L)
+			.putLong(Instant.parse("2025-03-01T10:15:30.123456789Z").getEpochSecond() * 1_000_000_000L + 123_456_789)
+			.putInt(name.length)
+			.put(name)
+			.putLong(eventId.getMostSignificantBits())
+			.putLong(eventId.getLeastSignificantBits());
+
+		TodoEvent decoded = (TodoEvent) converter.fromMessage(new Message(body.array(), new MessageProperties()));
+
+		assertThat(decoded.getId()).isEqualTo(42L);
+		assertThat(decoded.getName()).isEqualTo("Kjøp melk ☕");
+		assertThat(decoded.getInstant()).isEqualTo("2025-03-01T10:15:30.123456789Z");
+		assertThat(decoded.getEventId()).isEqualTo(eventId);
+	}
+
+	@Test
+	void roundTripsAllFields() {
+		TodoEvent event = new TodoEvent(42L, "Buy groceries", null);
+		event.setInstant(Instant.parse("1969-12-31T23:59:59.5Z"));
+		event.setEventId(UUID.randomUUID());
+
+		Message message = converter.toMessage(event, new MessageProperties());
+		TodoEvent decoded = (TodoEvent) converter.fromMessage(message);
+
+		assertThat(message.getMessageProperties().getContentType()).isEqualTo(TodoEventBinaryConverter.CONTENT_TYPE);
+		assertThat(decoded.getId()).isEqualTo(42L);
+		assertThat(decoded.getName()).isEqualTo("Buy groceries");
+		assertThat(decoded.getInstant()).isEqualTo("1969-12-31T23:59:59.5Z");
+		assertThat(decoded.getEventId()).isEqualTo(event.getEventId());
+	}
+
+	@Test
+	void roundTripsMissingFields() {
+		TodoEvent decoded = (TodoEvent) converter.fromMessage(converter.toMessage(new TodoEvent(), new MessageProperties()));
+
+		assertThat(decoded.getId()).isNull();
+		assertThat(decoded.getName()).isNull();
+		assertThat(decoded.getTimestamp()).isNull();
+		assertThat(decoded.getEventId()).isNull();
+	}
+
+	@Test
+	void ignoresTrailingFieldsItDoesNotKnow() {
+		byte[] body = converter.toMessage(new TodoEvent(7L, null, null), new MessageProperties()).getBody();
+		byte[] extended = Arrays.copyOf(body, body.length + 4);
+
+		TodoEvent decoded = (TodoEvent) converter.fromMessage(new Message(extended, new MessageProperties()));
+
+		assertThat(decoded.getId()).isEqualTo(7L);
+	}
+
+	@Test
+	void rejectsTruncatedMessage() {
+		Message message = converter.toMessage(new TodoEvent(42L, "Buy groceries", null), new MessageProperties());
+		byte[] truncated = Arrays.copyOf(message.getBody(), message.getBody().length - 3);
+
+		assertThatThrownBy(() -> converter.fromMessage(new Message(truncated, new MessageProperties())))
+			.isInstanceOf(MessageConversionException.class);
+	}
+
+	@Test
+	void rejectsUnknownVersion() {
+		assertThatThrownBy(() -> converter.fromMessage(new Message(new byte[] {2, 0}, new MessageProperties())))
+			.isInstanceOf(MessageConversionException.class);
+	}
+}
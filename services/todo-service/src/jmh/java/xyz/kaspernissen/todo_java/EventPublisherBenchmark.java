@@ -0,0 +1,41 @@
+package xyz.kaspernissen.todo_java;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single direct publish (message conversion included, broker send discarded) in both
+ * logging modes. Run with the gc profiler to compare the allocation per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventPublisherBenchmark {
+
+    @Param({"per-event", "summary"})
+    private String loggingMode;
+
+    private EventPublisher publisher;
+    private Todo todo;
+
+    @Setup
+    public void setUp() {
+        publisher = Stubs.eventPublisher(loggingMode);
+        todo = new Todo();
+        todo.setId(42L);
+        todo.setName("Buy groceries");
+    }
+
+    @Benchmark
+    public void publishTodoCreated() {
+        publisher.publishTodoCreated(todo);
+    }
+}
@@ -0,0 +1,37 @@
+package xyz.kaspernissen.todo_java;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of deciding a todo name with the local rules instead of a validation-service round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LocalValidationRulesBenchmark {
+
+    private LocalValidationRules rules;
+
+    @Setup
+    public void setUp() {
+        rules = Stubs.localValidationRules(true);
+    }
+
+    @Benchmark
+    public TodoNameRule.Verdict validName() {
+        return rules.evaluate("Buy groceries for the weekend");
+    }
+
+    @Benchmark
+    public TodoNameRule.Verdict blockedName() {
+        return rules.evaluate("Clean up that awful mess");
+    }
+}
@@ -0,0 +1,135 @@
+package xyz.kaspernissen.todo_java;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-ins for the infrastructure around {@link TodoController}, so the
+ * benchmarks measure the service code rather than MySQL or RabbitMQ.
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    static TodoController todoController() {
+        return todoController(Schedulers.boundedElastic());
+    }
+
+    static TodoController todoController(Scheduler blockingScheduler) {
+        TodoRepository repository = todoRepository();
+        return new TodoController(
+            repository,
+            new TodoCache(repository, false, 1, Duration.ofMinutes(1)),
+            new TodoBatchWriter(null),
+            new ValidationService(WebClient.builder(), "http://localhost:3001", false, 1, Duration.ofMinutes(1),
+                new ValidationCircuitBreaker(false, 1, 1, 1, Duration.ZERO),
+                new ValidationConcurrencyLimiter(false, 1, 1, 1, 1), localValidationRules(false), "fail-closed"),
+            eventPublisher(),
+            new TransactionTemplate(transactionManager()),
+            new TodoWriteCoalescer(null, null, null, null, null, false, 200, 1),
+            new TodoSearchIndex(null, null, false, 1),
+            blockingScheduler,
+            1000
+        );
+    }
+
+    static LocalValidationRules localValidationRules(boolean enabled) {
+        return new LocalValidationRules(
+            new ObjectMapper(),
+            new StaticListableBeanFactory().getBeanProvider(TodoNameRule.class),
+            enabled,
+            1,
+            255,
+            List.of("bad", "terrible", "awful"),
+            "",
+            "[\\p{L}\\p{N} .,!?'-]+",
+            ""
+        );
+    }
+
+    static EventPublisher eventPublisher() {
+        return eventPublisher("per-event");
+    }
+
+    static EventPublisher eventPublisher(String loggingMode) {
+        RabbitTemplate rabbitTemplate = new DiscardingRabbitTemplate();
+        ObjectProvider<ConfirmingPublisher> confirmingPublisher =
+            new StaticListableBeanFactory().getBeanProvider(ConfirmingPublisher.class);
+        return new EventPublisher(
+            rabbitTemplate,
+            null,
+            confirmingPublisher,
+            false,
+            new EventLogSummary(loggingMode),
+            new PublisherFlowControl(rabbitTemplate, confirmingPublisher, false, 1, List.of())
+        );
+    }
+
+    /**
+     * Repository whose save assigns an id and returns the entity; every other method is unsupported.
+     */
+    static TodoRepository todoRepository() {
+        AtomicLong ids = new AtomicLong();
+        return (TodoRepository) Proxy.newProxyInstance(
+            TodoRepository.class.getClassLoader(),
+            new Class<?>[] {TodoRepository.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("save")) {
+                    Todo todo = (Todo) args[0];
+                    todo.setId(ids.incrementAndGet());
+                    return todo;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    static PlatformTransactionManager transactionManager() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+    }
+
+    /**
+     * Converts the payload like the real template would, then drops the message.
+     */
+    static final class DiscardingRabbitTemplate extends RabbitTemplate {
+
+        DiscardingRabbitTemplate() {
+            setMessageConverter(new Jackson2JsonMessageConverter());
+        }
+
+        @Override
+        public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package xyz.kaspernissen.todo_java;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.ResponseEntity;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * createTodo with validation disabled and an in-memory repository and publisher. Includes
+ * the hand-off to the blocking scheduler that the real request path performs, either the
+ * bounded elastic pool or a virtual thread per task.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TodoControllerBenchmark {
+
+    @Param({"bounded-elastic", "virtual"})
+    public String scheduler;
+
+    private TodoController controller;
+    private Scheduler blockingScheduler;
+
+    @Setup
+    public void setUp() {
+        blockingScheduler = "virtual".equals(scheduler)
+            ? Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "todo-blocking")
+            : Schedulers.boundedElastic();
+        controller = Stubs.todoController(blockingScheduler);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if ("virtual".equals(scheduler)) {
+            blockingScheduler.dispose();
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<Todo> createTodo() {
+        Todo todo = new Todo();
+        todo.setName("Buy groceries");
+        return controller.createTodo(todo).block();
+    }
+}
@@ -0,0 +1,61 @@
+package xyz.kaspernissen.todo_java;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TodoEventSerializationBenchmark {
+
+    private Jackson2JsonMessageConverter converter;
+    private TodoEventBinaryConverter binaryConverter;
+    private TodoEvent event;
+    private Message message;
+    private Message binaryMessage;
+
+    @Setup
+    public void setUp() {
+        converter = new Jackson2JsonMessageConverter();
+        event = new TodoEvent(42L, "Buy groceries");
+        message = converter.toMessage(event, new MessageProperties());
+        binaryConverter = new TodoEventBinaryConverter();
+        binaryMessage = binaryConverter.toMessage(event, new MessageProperties());
+    }
+
+    // A fresh event per call so the cost of formatting the timestamp is included
+    @Benchmark
+    public Message serialize() {
+        return converter.toMessage(new TodoEvent(42L, "Buy groceries"), new MessageProperties());
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return converter.fromMessage(message);
+    }
+
+    @Benchmark
+    public Message serializeBinary() {
+        return binaryConverter.toMessage(new TodoEvent(42L, "Buy groceries"), new MessageProperties());
+    }
+
+    @Benchmark
+    public Object deserializeBinary() {
+        return binaryConverter.fromMessage(binaryMessage);
+    }
+
+    @Benchmark
+    public TodoEvent createEvent() {
+        return new TodoEvent(42L, "Buy groceries");
+    }
+}
@@ -0,0 +1,80 @@
+package xyz.kaspernissen.todo_java;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency over an index of generated todo names, compared with the linear scan a
+ * LIKE '%x%' query does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrigramIndexBenchmark {
+
+    private static final String[] WORDS = {
+        "buy", "milk", "bread", "call", "mom", "dentist", "appointment", "water", "plants", "walk",
+        "dog", "pay", "rent", "invoice", "review", "pull", "request", "book", "flight", "tickets",
+        "clean", "kitchen", "garage", "fix", "bike", "renew", "passport", "order", "groceries", "email"
+    };
+
+    @Param({"1000000"})
+    public int todos;
+
+    private TrigramIndex index;
+    private String[] names;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        index = new TrigramIndex();
+        names = new String[todos];
+        for (int i = 0; i < todos; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                + " " + WORDS[random.nextInt(WORDS.length)] + " #" + i;
+            names[i] = name;
+            index.put(i + 1, name);
+        }
+    }
+
+    @Benchmark
+    public List<TrigramIndex.Hit> selectiveSubstring() {
+        return index.search("#4242", 20);
+    }
+
+    @Benchmark
+    public List<TrigramIndex.Hit> commonWordPrefix() {
+        return index.search("appoint", 20);
+    }
+
+    @Benchmark
+    public List<TrigramIndex.Hit> commonWords() {
+        return index.search("dentist appoint", 20);
+    }
+
+    @Benchmark
+    public List<TrigramIndex.Hit> fuzzy() {
+        return index.search("passprot #77777", 20);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int matches = 0;
+        for (String name : names) {
+            if (name.toLowerCase().contains("#4242")) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
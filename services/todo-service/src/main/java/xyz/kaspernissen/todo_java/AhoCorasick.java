@@ -0,0 +1,116 @@
+package xyz.kaspernissen.todo_java;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Case-insensitive multi-substring matcher. All keywords are found in a single pass over the
+ * text regardless of how many there are, and matching does not allocate.
+ */
+final class AhoCorasick {
+
+    // Per state: sorted transition characters and their target states
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] fail;
+    private final boolean[] terminal;
+
+    AhoCorasick(Collection<String> keywords) {
+        List<StringBuilder> keyLists = new ArrayList<>();
+        List<List<Integer>> targetLists = new ArrayList<>();
+        List<Boolean> terminals = new ArrayList<>();
+        keyLists.add(new StringBuilder());
+        targetLists.add(new ArrayList<>());
+        terminals.add(false);
+
+        for (String keyword : keywords) {
+            String lower = keyword.toLowerCase(Locale.ROOT);
+            if (lower.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < lower.length(); i++) {
+                char c = lower.charAt(i);
+                int index = keyLists.get(state).indexOf(String.valueOf(c));
+                if (index >= 0) {
+                    state = targetLists.get(state).get(index);
+                } else {
+                    int next = keyLists.size();
+                    keyLists.add(new StringBuilder());
+                    targetLists.add(new ArrayList<>());
+                    terminals.add(false);
+                    keyLists.get(state).append(c);
+                    targetLists.get(state).add(next);
+                    state = next;
+                }
+            }
+            terminals.set(state, true);
+        }
+
+        int states = keyLists.size();
+        keys = new char[states][];
+        targets = new int[states][];
+        terminal = new boolean[states];
+        for (int state = 0; state < states; state++) {
+            char[] stateKeys = keyLists.get(state).toString().toCharArray();
+            Integer[] order = new Integer[stateKeys.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Character.compare(stateKeys[a], stateKeys[b]));
+            keys[state] = new char[order.length];
+            targets[state] = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[state][i] = stateKeys[order[i]];
+                targets[state][i] = targetLists.get(state).get(order[i]);
+            }
+            terminal[state] = terminals.get(state);
+        }
+
+        // Breadth-first so every fail link points to an already finished, shallower state
+        fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int target : targets[0]) {
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < keys[state].length; i++) {
+                int target = targets[state][i];
+                int fallback = fail[state];
+                int next;
+                while ((next = transition(fallback, keys[state][i])) < 0 && fallback != 0) {
+                    fallback = fail[fallback];
+                }
+                fail[target] = next >= 0 && next != target ? next : 0;
+                terminal[target] |= terminal[fail[target]];
+                queue.add(target);
+            }
+        }
+    }
+
+    boolean containsAny(CharSequence text) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = transition(state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(next, 0);
+            if (terminal[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int transition(int state, char c) {
+        int index = Arrays.binarySearch(keys[state], c);
+        return index >= 0 ? targets[state][index] : -1;
+    }
+}
@@ -0,0 +1,201 @@
+package xyz.kaspernissen.todo_java;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * High-throughput publishing mode. Sends return immediately and broker confirms are
+ * handled asynchronously; the number of unconfirmed messages is bounded by a semaphore
+ * so callers are slowed down instead of growing memory without limit. Nacked messages
+ * (including those pending when a channel closes during broker failover) are re-sent.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.events.publisher.confirms.enabled", havingValue = "true")
+public class ConfirmingPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfirmingPublisher.class);
+    private static final String CORRELATION_PREFIX = "pub-";
+    private static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("outcome");
+    private static final Attributes ACKED = Attributes.of(OUTCOME, "ack");
+    private static final Attributes NACKED = Attributes.of(OUTCOME, "nack");
+
+    private final RabbitTemplate rabbitTemplate;
+    private final Semaphore inFlight;
+    private final long acquireTimeoutMs;
+    private final int maxRetries;
+    private final Map<String, PendingPublish> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // Confirm callbacks run on the AMQP client thread, re-sends are handed off from there
+    private final ExecutorService retryExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "confirming-publisher-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final DoubleHistogram confirmLatency;
+    private final LongCounter retriedCounter;
+    private final LongCounter droppedCounter;
+    private final LongCounter returnedCounter;
+
+    public ConfirmingPublisher(RabbitTemplate rabbitTemplate,
+                               @Value("${todo.events.publisher.max-in-flight:1000}") int maxInFlight,
+                               @Value("${todo.events.publisher.acquire-timeout-ms:5000}") long acquireTimeoutMs,
+                               @Value("${todo.events.publisher.max-retries:3}") int maxRetries) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.maxRetries = maxRetries;
+
+        Meter meter = GlobalOpenTelemetry.get().getMeter("event-publisher");
+        this.confirmLatency = meter.histogramBuilder("rabbitmq.publish.confirm.duration")
+            .setDescription("Time from publish until the broker confirmed the message")
+            .setUnit("ms")
+            .build();
+        this.retriedCounter = meter.counterBuilder("rabbitmq.publish.retried")
+            .setDescription("Number of messages re-sent after a nack")
+            .build();
+        this.droppedCounter = meter.counterBuilder("rabbitmq.publish.dropped")
+            .setDescription("Number of messages given up on after exhausting retries")
+            .build();
+        this.returnedCounter = meter.counterBuilder("rabbitmq.publish.returned")
+            .setDescription("Number of unroutable messages returned by the broker")
+            .build();
+        meter.gaugeBuilder("rabbitmq.publish.in_flight")
+            .setDescription("Number of published messages awaiting a broker confirm")
+            .ofLongs()
+            .buildWithCallback(measurement -> measurement.record(pending.size()));
+
+        rabbitTemplate.setMandatory(true);
+        rabbitTemplate.setConfirmCallback(this::onConfirm);
+        rabbitTemplate.setReturnsCallback(this::onReturned);
+    }
+
+    /**
+     * Sends the event without waiting for the broker. Blocks only when the in-flight
+     * limit is reached, and throws {@link InFlightLimitException} without sending if no slot
+     * frees up within the acquire timeout; the caller decides where the event goes instead.
+     */
+    public void send(String routingKey, Object event) {
+        try {
+            if (!inFlight.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new InFlightLimitException(pending.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted waiting for publisher confirms", e);
+        }
+
+        PendingPublish publish = new PendingPublish(routingKey, event);
+        try {
+            doSend(CORRELATION_PREFIX + sequence.incrementAndGet(), publish);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void doSend(String correlationId, PendingPublish publish) {
+        publish.sentAtNanos = System.nanoTime();
+        pending.put(correlationId, publish);
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, publish.routingKey, publish.event,
+                new CorrelationData(correlationId));
+        } catch (RuntimeException e) {
+            pending.remove(correlationId);
+            throw e;
+        }
+    }
+
+    private void onConfirm(CorrelationData correlationData, boolean ack, String cause) {
+        // Confirms for correlation ids we did not issue (e.g. the outbox relay) are ignored
+        if (correlationData == null || correlationData.getId() == null) {
+            return;
+        }
+        PendingPublish publish = pending.remove(correlationData.getId());
+        if (publish == null) {
+            return;
+        }
+
+        double latencyMs = (System.nanoTime() - publish.sentAtNanos) / 1_000_000.0;
+        confirmLatency.record(latencyMs, ack ? ACKED : NACKED);
+
+        if (ack) {
+            inFlight.release();
+            return;
+        }
+
+        if (publish.attempts >= maxRetries) {
+            inFlight.release();
+            droppedCounter.add(1);
+            logger.error("Giving up on {} event after {} attempts: {}", publish.routingKey, publish.attempts + 1, cause);
+            return;
+        }
+
+        publish.attempts++;
+        retriedCounter.add(1);
+        logger.warn("Broker nacked {} event ({}), re-sending", publish.routingKey, cause);
+        retryExecutor.execute(() -> {
+            try {
+                doSend(CORRELATION_PREFIX + sequence.incrementAndGet(), publish);
+            } catch (RuntimeException e) {
+                inFlight.release();
+                droppedCounter.add(1);
+                logger.error("Failed to re-send {} event", publish.routingKey, e);
+            }
+        });
+    }
+
+    private void onReturned(ReturnedMessage returned) {
+        returnedCounter.add(1);
+        logger.warn("Message returned as unroutable: exchange={}, routingKey={}, reply={}",
+            returned.getExchange(), returned.getRoutingKey(), returned.getReplyText());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryExecutor.shutdown();
+    }
+
+    /**
+     * The event was not sent because the broker did not confirm earlier messages in time.
+     */
+    public static class InFlightLimitException extends AmqpException {
+        InFlightLimitException(int inFlight) {
+            super("Timed out waiting for publisher confirms, " + inFlight + " in flight");
+        }
+    }
+
+    private static final class PendingPublish {
+        private final String routingKey;
+        private final Object event;
+        private volatile long sentAtNanos;
+        private volatile int attempts;
+
+        private PendingPublish(String routingKey, Object event) {
+            this.routingKey = routingKey;
+            this.event = event;
+        }
+    }
+}
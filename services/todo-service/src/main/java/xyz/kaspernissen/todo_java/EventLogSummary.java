@@ -0,0 +1,61 @@
+package xyz.kaspernissen.todo_java;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * High-throughput alternative to the per-event INFO lines of {@link EventPublisher}. In
+ * {@code summary} mode publishes are only counted (no formatting, no allocation once a routing
+ * key has been seen) and one aggregated line is logged per interval. Per-event lines remain
+ * available at DEBUG. In the default {@code per-event} mode this class does nothing.
+ */
+@Component
+public class EventLogSummary {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventLogSummary.class);
+
+    private final boolean summaryMode;
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    public EventLogSummary(@Value("${todo.events.logging.mode:per-event}") String mode) {
+        this.summaryMode = "summary".equalsIgnoreCase(mode);
+    }
+
+    public boolean isPerEvent() {
+        return !summaryMode;
+    }
+
+    public void record(String routingKey, int events) {
+        if (summaryMode) {
+            counts.computeIfAbsent(routingKey, key -> new LongAdder()).add(events);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${todo.events.logging.summary-interval-ms:10000}")
+    public void logSummary() {
+        if (!summaryMode) {
+            return;
+        }
+        StringBuilder summary = null;
+        for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+            if (summary == null) {
+                summary = new StringBuilder("Published events since last summary:");
+            }
+            summary.append(' ').append(entry.getKey()).append('=').append(count);
+        }
+        if (summary != null) {
+            logger.info(summary.toString());
+        }
+    }
+}
@@ -1,57 +1,237 @@
 package xyz.kaspernissen.todo_java;
 
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class EventPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(EventPublisher.class);
+    private static final AttributeKey<String> EVENT_TYPE = AttributeKey.stringKey("event.type");
+    private static final AttributeKey<String> PUBLISH_MODE = AttributeKey.stringKey("publish.mode");
+
     private final RabbitTemplate rabbitTemplate;
+    private final OutboxRepository outboxRepository;
+    private final ConfirmingPublisher confirmingPublisher;
+    private final boolean outboxEnabled;
+    private final EventLogSummary eventLogSummary;
+    private final PublisherFlowControl flowControl;
+    private final DoubleHistogram publishDuration;
+    // One entry per routing key, so the attribute sets stay bounded
+    private final Map<String, Attributes> publishAttributes = new ConcurrentHashMap<>();
 
-    public EventPublisher(RabbitTemplate rabbitTemplate) {
+    public EventPublisher(RabbitTemplate rabbitTemplate,
+                          OutboxRepository outboxRepository,
+                          ObjectProvider<ConfirmingPublisher> confirmingPublisher,
+                          @Value("${todo.events.outbox.enabled:false}") boolean outboxEnabled,
+                          EventLogSummary eventLogSummary,
+                          PublisherFlowControl flowControl) {
         this.rabbitTemplate = rabbitTemplate;
+        this.outboxRepository = outboxRepository;
+        this.confirmingPublisher = confirmingPublisher.getIfAvailable();
+        this.outboxEnabled = outboxEnabled;
+        this.eventLogSummary = eventLogSummary;
+        this.flowControl = flowControl;
+        this.publishDuration = GlobalOpenTelemetry.get().getMeter("event-publisher")
+            .histogramBuilder("todo.events.publish.duration")
+            .setDescription("Time spent on the request thread publishing todo events (or writing them to the outbox)")
+            .setUnit("ms")
+            .build();
     }
 
     public void publishTodoCreated(Todo todo) {
-        try {
-            TodoEvent event = new TodoEvent(todo.getId(), todo.getName());
+        publish(RabbitMQConfig.ROUTING_KEY, todo);
+    }
+
+    public void publishTodoUpdated(Todo todo) {
+        publish(RabbitMQConfig.UPDATED_ROUTING_KEY, todo);
+    }
 
-            logger.info("Publishing todo created event: id={}, name={}",
-                event.getId(), event.getName());
+    public void publishTodoDeleted(Todo todo) {
+        publish(RabbitMQConfig.DELETED_ROUTING_KEY, todo);
+    }
+
+    public void publishTodosCreated(List<Todo> todos) {
+        publishAll(RabbitMQConfig.ROUTING_KEY, todos);
+    }
 
-            rabbitTemplate.convertAndSend(
-                RabbitMQConfig.EXCHANGE_NAME,
-                "todo.created",
-                event
-            );
+    public void publishTodosDeleted(List<Todo> todos) {
+        publishAll(RabbitMQConfig.DELETED_ROUTING_KEY, todos);
+    }
+
+    /**
+     * Bulk variant of {@link #publish(String, Todo)}. Direct sends are made back-to-back on a
+     * single channel instead of checking a channel out of the cache for every event.
+     */
+    private void publishAll(String routingKey, List<Todo> todos) {
+        List<TodoEvent> events = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            events.add(new TodoEvent(todo.getId(), todo.getName()));
+        }
+
+        if (outboxEnabled) {
+            long startNanos = System.nanoTime();
+            List<OutboxEvent> outboxEvents = new ArrayList<>(events.size());
+            for (TodoEvent event : events) {
+                outboxEvents.add(new OutboxEvent(routingKey, event));
+            }
+            outboxRepository.saveAll(outboxEvents);
+            recordPublishDuration(routingKey, startNanos);
+            logger.debug("Stored {} {} events in outbox", events.size(), routingKey);
+            return;
+        }
+
+        runAfterCommit(() -> {
+            long startNanos = System.nanoTime();
+            try {
+                sendAll(routingKey, events);
+            } finally {
+                recordPublishDuration(routingKey, startNanos);
+            }
+        });
+    }
+
+    private void sendAll(String routingKey, List<TodoEvent> events) {
+        if (flowControl.shouldDivert()) {
+            events.forEach(event -> flowControl.divert(routingKey, event));
+            return;
+        }
 
-            logger.info("Successfully published todo created event for id: {}", todo.getId());
+        try {
+            if (confirmingPublisher != null) {
+                for (int i = 0; i < events.size(); i++) {
+                    try {
+                        confirmingPublisher.send(routingKey, events.get(i));
+                    } catch (ConfirmingPublisher.InFlightLimitException e) {
+                        spillRemaining(routingKey, events.subList(i, events.size()), e);
+                        return;
+                    }
+                }
+            } else {
+                rabbitTemplate.invoke(operations -> {
+                    for (TodoEvent event : events) {
+                        operations.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, routingKey, event);
+                    }
+                    return null;
+                });
+            }
+
+            if (eventLogSummary.isPerEvent()) {
+                logger.info("Successfully published {} {} events", events.size(), routingKey);
+            } else {
+                eventLogSummary.record(routingKey, events.size());
+            }
         } catch (Exception e) {
-            logger.error("Failed to publish todo created event for id: {}", todo.getId(), e);
+            logger.error("Failed to publish {} {} events", events.size(), routingKey, e);
             // Don't throw - we don't want to fail the API request if messaging fails
         }
     }
 
-    public void publishTodoDeleted(Todo todo) {
-        try {
-            TodoEvent event = new TodoEvent(todo.getId(), todo.getName());
+    /**
+     * In outbox mode the event is stored in the caller's transaction and sent later by
+     * {@link OutboxRelay}; failures propagate so the surrounding write is rolled back.
+     * Otherwise the event is sent once the caller's transaction has committed (right away
+     * without one), so consumers never see a rolled-back or not yet visible row, and send
+     * failures are only logged.
+     */
+    private void publish(String routingKey, Todo todo) {
+        TodoEvent event = new TodoEvent(todo.getId(), todo.getName());
+
+        if (outboxEnabled) {
+            long startNanos = System.nanoTime();
+            outboxRepository.save(new OutboxEvent(routingKey, event));
+            recordPublishDuration(routingKey, startNanos);
+            logger.debug("Stored {} event in outbox for id: {}", routingKey, todo.getId());
+            return;
+        }
+
+        runAfterCommit(() -> {
+            long startNanos = System.nanoTime();
+            try {
+                send(routingKey, event);
+            } finally {
+                recordPublishDuration(routingKey, startNanos);
+            }
+        });
+    }
+
+    private void send(String routingKey, TodoEvent event) {
+        if (flowControl.shouldDivert()) {
+            flowControl.divert(routingKey, event);
+            return;
+        }
 
-            logger.info("Publishing todo deleted event: id={}, name={}",
-                event.getId(), event.getName());
+        try {
+            if (eventLogSummary.isPerEvent()) {
+                logger.info("Publishing {} event: id={}, name={}",
+                    routingKey, event.getId(), event.getName());
+            }
 
-            rabbitTemplate.convertAndSend(
-                RabbitMQConfig.EXCHANGE_NAME,
-                "todo.deleted",
-                event
-            );
+            if (confirmingPublisher != null) {
+                try {
+                    confirmingPublisher.send(routingKey, event);
+                } catch (ConfirmingPublisher.InFlightLimitException e) {
+                    spillRemaining(routingKey, List.of(event), e);
+                    return;
+                }
+            } else {
+                rabbitTemplate.convertAndSend(
+                    RabbitMQConfig.EXCHANGE_NAME,
+                    routingKey,
+                    event
+                );
+            }
 
-            logger.info("Successfully published todo deleted event for id: {}", todo.getId());
+            if (eventLogSummary.isPerEvent()) {
+                logger.info("Successfully published {} event for id: {}", routingKey, event.getId());
+            } else {
+                eventLogSummary.record(routingKey, 1);
+                logger.debug("Published {} event for id: {}", routingKey, event.getId());
+            }
         } catch (Exception e) {
-            logger.error("Failed to publish todo deleted event for id: {}", todo.getId(), e);
+            logger.error("Failed to publish {} event for id: {}", routingKey, event.getId(), e);
             // Don't throw - we don't want to fail the API request if messaging fails
         }
     }
+
+    // Not sent because of the in-flight limit: the spill buffer sends them once confirms catch up
+    private void spillRemaining(String routingKey, List<TodoEvent> events, Exception cause) {
+        logger.warn("Deferring {} {} events to the spill buffer: {}", events.size(), routingKey, cause.getMessage());
+        events.forEach(event -> flowControl.spill(routingKey, event));
+    }
+
+    private void runAfterCommit(Runnable send) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send.run();
+                }
+            });
+        } else {
+            send.run();
+        }
+    }
+
+    private void recordPublishDuration(String routingKey, long startNanos) {
+        Attributes attributes = publishAttributes.computeIfAbsent(routingKey, key -> Attributes.of(
+            EVENT_TYPE, key,
+            PUBLISH_MODE, outboxEnabled ? "outbox" : confirmingPublisher != null ? "confirming" : "direct"));
+        publishDuration.record((System.nanoTime() - startNanos) / 1_000_000.0, attributes);
+    }
 }
@@ -0,0 +1,44 @@
+package xyz.kaspernissen.todo_java;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate second-level cache for the {@code jpa-cache} profile (see
+ * application-jpa-cache.properties). Regions are bounded Caffeine caches behind JCache and are
+ * created up front, so no region silently falls back to an unbounded default.
+ */
+@Configuration
+@Profile("jpa-cache")
+public class JpaCacheConfig {
+
+    static final String TODO_REGION = "todo";
+
+    @Bean
+    public HibernatePropertiesCustomizer jpaCacheManagerCustomizer(
+            @Value("${todo.jpa.cache.max-size:10000}") long maxSize,
+            @Value("${todo.jpa.cache.ttl:10m}") Duration ttl) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager();
+        cacheManager.createCache(TODO_REGION, region(maxSize, ttl));
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+}
@@ -0,0 +1,60 @@
+package xyz.kaspernissen.todo_java;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-region hit, miss, put and hit ratio meters of the Hibernate second-level cache, read from
+ * Hibernate's statistics (enabled by the {@code jpa-cache} profile) and listed under
+ * {@code /actuator/metrics}.
+ */
+@Component
+@Profile("jpa-cache")
+public class JpaCacheMetrics implements MeterBinder {
+
+    private final Statistics statistics;
+
+    public JpaCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Regions are created with the session factory, so the set is fixed by the time we bind
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats == null) {
+                continue;
+            }
+            FunctionCounter.builder("hibernate.cache.hits", stats, CacheRegionStatistics::getHitCount)
+                .description("Second-level cache hits per region")
+                .tag("region", region)
+                .register(registry);
+            FunctionCounter.builder("hibernate.cache.misses", stats, CacheRegionStatistics::getMissCount)
+                .description("Second-level cache misses per region")
+                .tag("region", region)
+                .register(registry);
+            FunctionCounter.builder("hibernate.cache.puts", stats, CacheRegionStatistics::getPutCount)
+                .description("Second-level cache puts per region")
+                .tag("region", region)
+                .register(registry);
+            Gauge.builder("hibernate.cache.hit_ratio", stats, JpaCacheMetrics::hitRatio)
+                .description("Second-level cache hit ratio per region since startup")
+                .tag("region", region)
+                .register(registry);
+        }
+    }
+
+    private static double hitRatio(CacheRegionStatistics stats) {
+        long requests = stats.getHitCount() + stats.getMissCount();
+        return requests > 0 ? (double) stats.getHitCount() / requests : Double.NaN;
+    }
+}
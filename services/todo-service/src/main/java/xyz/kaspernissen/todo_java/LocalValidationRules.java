@@ -0,0 +1,139 @@
+package xyz.kaspernissen.todo_java;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process rules that decide obviously valid or invalid todo names before the remote
+ * validation service is called. The ruleset is built from the {@code validation.rules.*}
+ * properties; if {@code validation.rules.file} is set, that JSON file overrides them and is
+ * re-read whenever it changes (e.g. a mounted ConfigMap), without a restart. An invalid file
+ * is logged and the previous ruleset stays active.
+ */
+@Component
+public class LocalValidationRules {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalValidationRules.class);
+    private static final AttributeKey<String> DECISION = AttributeKey.stringKey("decision");
+    private static final Attributes DECIDED_VALID = Attributes.of(DECISION, "valid");
+    private static final Attributes DECIDED_INVALID = Attributes.of(DECISION, "invalid");
+    private static final Attributes UNDECIDED = Attributes.of(DECISION, "undecided");
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final TodoNameRules.Definition defaults;
+    private final List<TodoNameRule> customRules;
+    private final Path rulesFile;
+    private final LongCounter decisionsCounter;
+
+    private volatile TodoNameRules rules = TodoNameRules.NONE;
+    private FileTime rulesFileModified;
+    // Guards rulesFileModified; a lock rather than a monitor, reloading reads the file
+    private final Lock reloadLock = new ReentrantLock();
+
+    public LocalValidationRules(ObjectMapper objectMapper,
+                                ObjectProvider<TodoNameRule> customRules,
+                                @Value("${validation.rules.enabled:false}") boolean enabled,
+                                @Value("${validation.rules.min-length:1}") int minLength,
+                                @Value("${validation.rules.max-length:255}") int maxLength,
+                                @Value("${validation.rules.blocklist:}") List<String> blocklist,
+                                @Value("${validation.rules.deny-pattern:}") String denyPattern,
+                                @Value("${validation.rules.allow-pattern:}") String allowPattern,
+                                @Value("${validation.rules.file:}") String rulesFile) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.defaults = new TodoNameRules.Definition(minLength, maxLength, blocklist,
+            denyPattern.isEmpty() ? List.of() : List.of(denyPattern),
+            allowPattern.isEmpty() ? List.of() : List.of(allowPattern));
+        this.customRules = customRules.orderedStream().toList();
+        this.rulesFile = rulesFile.isEmpty() ? null : Path.of(rulesFile);
+        this.decisionsCounter = GlobalOpenTelemetry.get().getMeter("todo-service-validation-client")
+            .counterBuilder("validation.local.decisions")
+            .setDescription("Todo names checked by the local rules, by decision")
+            .build();
+
+        if (enabled) {
+            rules = TodoNameRules.compile(defaults, this.customRules);
+            // Private, so no overridable method is called before construction has finished
+            loadRulesFile();
+        }
+    }
+
+    /**
+     * Evaluates the current ruleset. {@link TodoNameRule.Verdict#UNDECIDED} means the
+     * remote validation service has to decide.
+     */
+    public TodoNameRule.Verdict evaluate(String todoName) {
+        if (!enabled) {
+            return TodoNameRule.Verdict.UNDECIDED;
+        }
+        TodoNameRule.Verdict verdict = rules.evaluate(todoName);
+        decisionsCounter.add(1, switch (verdict) {
+            case VALID -> DECIDED_VALID;
+            case INVALID -> DECIDED_INVALID;
+            case UNDECIDED -> UNDECIDED;
+        });
+        return verdict;
+    }
+
+    @Scheduled(fixedDelayString = "${validation.rules.reload-interval-ms:10000}")
+    public void reload() {
+        reloadLock.lock();
+        try {
+            loadRulesFile();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void loadRulesFile() {
+        if (!enabled || rulesFile == null) {
+            return;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(rulesFile);
+            if (modified.equals(rulesFileModified)) {
+                return;
+            }
+            RulesFile file = objectMapper.readValue(rulesFile.toFile(), RulesFile.class);
+            rules = TodoNameRules.compile(file.merge(defaults), customRules);
+            rulesFileModified = modified;
+            logger.info("Loaded validation rules from {}", rulesFile);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not load validation rules from {}, keeping the current rules", rulesFile, e);
+        }
+    }
+
+    /**
+     * JSON form of the ruleset; fields left out fall back to the properties.
+     */
+    record RulesFile(Integer minLength, Integer maxLength, List<String> blocklist,
+                     List<String> denyPatterns, List<String> allowPatterns) {
+
+        TodoNameRules.Definition merge(TodoNameRules.Definition defaults) {
+            return new TodoNameRules.Definition(
+                minLength != null ? minLength : defaults.minLength(),
+                maxLength != null ? maxLength : defaults.maxLength(),
+                blocklist != null ? blocklist : defaults.blocklist(),
+                denyPatterns != null ? denyPatterns : defaults.denyPatterns(),
+                allowPatterns != null ? allowPatterns : defaults.allowPatterns());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package xyz.kaspernissen.todo_java;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "todo_outbox")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "routing_key", nullable = false)
+    private String routingKey;
+
+    @Column(name = "todo_id", nullable = false)
+    private Long todoId;
+
+    @Column(name = "todo_name", nullable = false)
+    private String todoName;
+
+    @Column(name = "event_timestamp", nullable = false)
+    private String eventTimestamp;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Nullable for rows written before event ids existed
+    @Column(name = "event_id")
+    private UUID eventId;
+
+    // Lease taken by OutboxRelay while the row is being published; only written with native SQL
+    @Column(name = "claimed_until", insertable = false, updatable = false)
+    private LocalDateTime claimedUntil;
+
+    public OutboxEvent(String routingKey, TodoEvent event) {
+        this.routingKey = routingKey;
+        this.todoId = event.getId();
+        this.todoName = event.getName();
+        this.eventTimestamp = event.getTimestamp();
+        this.createdAt = Instant.now();
+        this.eventId = event.getEventId();
+    }
+
+    public TodoEvent toTodoEvent() {
+        TodoEvent event = new TodoEvent(todoId, todoName);
+        event.setTimestamp(eventTimestamp);
+        // Every relay attempt of a row must carry the same id, also for rows without a stored one
+        event.setEventId(eventId != null
+            ? eventId
+            : UUID.nameUUIDFromBytes(("todo-outbox-" + id).getBytes(StandardCharsets.UTF_8)));
+        return event;
+    }
+}
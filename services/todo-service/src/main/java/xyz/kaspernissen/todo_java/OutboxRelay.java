@@ -0,0 +1,164 @@
+package xyz.kaspernissen.todo_java;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the todo outbox to RabbitMQ. A batch is claimed with a short lease in its own
+ * transaction, published back-to-back with correlated publisher confirms outside of any
+ * transaction, and then only rows the broker acked are deleted, so delivery is at-least-once.
+ * Unacked rows are released for the next poll; rows of a relay that died keep their lease
+ * until it expires. Runs on its own thread, so a backlog waiting for confirms does not hold up
+ * the shared scheduler, and relays at most max-batches-per-run batches per poll.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.events.outbox.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+    private final long claimTtlMs;
+    private final long pollIntervalMs;
+    private final int maxBatchesPerRun;
+    private final ScheduledExecutorService relayExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       RabbitTemplate rabbitTemplate,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${todo.events.outbox.batch-size:100}") int batchSize,
+                       @Value("${todo.events.outbox.confirm-timeout-ms:5000}") long confirmTimeoutMs,
+                       @Value("${todo.events.outbox.claim-ttl-ms:30000}") long claimTtlMs,
+                       @Value("${todo.events.outbox.poll-interval-ms:500}") long pollIntervalMs,
+                       @Value("${todo.events.outbox.max-batches-per-run:50}") int maxBatchesPerRun) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.claimTtlMs = Math.max(claimTtlMs, confirmTimeoutMs);
+        this.pollIntervalMs = pollIntervalMs;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        relayExecutor.scheduleWithFixedDelay(this::drain, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayExecutor.shutdown();
+        try {
+            // Let a running batch settle its rows; anything still claimed is retried once the lease expires
+            relayExecutor.awaitTermination(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void drain() {
+        try {
+            int relayed;
+            int batches = 0;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize && ++batches < maxBatchesPerRun);
+        } catch (Exception e) {
+            logger.error("Failed to relay outbox events", e);
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            List<OutboxEvent> locked = outboxRepository.lockNextBatch(batchSize);
+            if (!locked.isEmpty()) {
+                outboxRepository.claim(locked.stream().map(OutboxEvent::getId).toList(), claimTtlMs);
+            }
+            return locked;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        // Pipeline: send the whole batch before waiting for any confirm
+        List<CorrelationData> confirms = new ArrayList<>(batch.size());
+        try {
+            for (OutboxEvent outboxEvent : batch) {
+                CorrelationData correlationData = new CorrelationData(String.valueOf(outboxEvent.getId()));
+                rabbitTemplate.convertAndSend(
+                    RabbitMQConfig.EXCHANGE_NAME,
+                    outboxEvent.getRoutingKey(),
+                    outboxEvent.toTodoEvent(),
+                    correlationData
+                );
+                confirms.add(correlationData);
+            }
+        } catch (Exception e) {
+            // Rows after the failed send are released below together with the unconfirmed ones
+            logger.warn("Failed to send outbox event, {} of {} sent", confirms.size(), batch.size(), e);
+        }
+
+        // One deadline for the whole batch, not a full timeout per confirm
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        List<Long> acked = new ArrayList<>(batch.size());
+        List<Long> unacked = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (i < confirms.size() && isAcked(confirms.get(i), deadlineNanos)) {
+                acked.add(batch.get(i).getId());
+            } else {
+                unacked.add(batch.get(i).getId());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxRepository.deleteAllByIdInBatch(acked);
+            if (!unacked.isEmpty()) {
+                outboxRepository.release(unacked);
+            }
+        });
+        if (!unacked.isEmpty()) {
+            logger.warn("Broker did not confirm {} of {} outbox events, will retry",
+                unacked.size(), batch.size());
+            // Stop draining until the next poll, the broker is not keeping up
+            return 0;
+        }
+        logger.debug("Relayed {} outbox events", acked.size());
+        return acked.size();
+    }
+
+    private static boolean isAcked(CorrelationData correlationData, long deadlineNanos) {
+        try {
+            long remainingNanos = Math.max(0, deadlineNanos - System.nanoTime());
+            return correlationData.getFuture().get(remainingNanos, TimeUnit.NANOSECONDS).isAck();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
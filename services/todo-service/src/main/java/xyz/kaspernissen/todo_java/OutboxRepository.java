@@ -0,0 +1,28 @@
+package xyz.kaspernissen.todo_java;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // SKIP LOCKED lets several todo-service replicas claim disjoint batches concurrently
+    @Query(value = "SELECT * FROM todo_outbox WHERE claimed_until IS NULL OR claimed_until < NOW(6) "
+        + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+
+    // Database time on both sides, so replica clocks do not matter
+    @Modifying
+    @Query(value = "UPDATE todo_outbox SET claimed_until = NOW(6) + INTERVAL :ttlMs * 1000 MICROSECOND "
+        + "WHERE id IN (:ids)", nativeQuery = true)
+    int claim(@Param("ids") List<Long> ids, @Param("ttlMs") long ttlMs);
+
+    @Modifying
+    @Query(value = "UPDATE todo_outbox SET claimed_until = NULL WHERE id IN (:ids)", nativeQuery = true)
+    int release(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,150 @@
+package xyz.kaspernissen.todo_java;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionBlockedEvent;
+import org.springframework.amqp.rabbit.connection.ConnectionUnblockedEvent;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reacts to RabbitMQ flow control. While the broker has blocked our connection (memory or disk
+ * alarm), publishing would stall request threads, so events are diverted: routing keys listed
+ * as sheddable are dropped, everything else is deferred to a bounded in-memory spill buffer and
+ * sent in order once the connection is unblocked. Events arriving while the buffer still drains
+ * are appended to it as well, so ordering is kept. When the buffer is full, events are dropped
+ * and counted. Spilled events are lost if the pod stops; use the outbox where that matters.
+ * Events the confirming publisher could not send within its in-flight limit are spilled the same
+ * way, also when flow control is disabled.
+ */
+@Component
+public class PublisherFlowControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublisherFlowControl.class);
+    private static final AttributeKey<String> EVENT_TYPE = AttributeKey.stringKey("event.type");
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ConfirmingPublisher confirmingPublisher;
+    private final boolean enabled;
+    private final Set<String> sheddableRoutingKeys;
+    private final BlockingQueue<SpilledEvent> spillBuffer;
+    private final LongCounter shedCounter;
+    private final LongCounter overflowCounter;
+
+    private volatile boolean blocked;
+    // One drain at a time; a lock rather than a monitor, sends block on the broker and confirms
+    private final Lock drainLock = new ReentrantLock();
+
+    public PublisherFlowControl(RabbitTemplate rabbitTemplate,
+                                ObjectProvider<ConfirmingPublisher> confirmingPublisher,
+                                @Value("${todo.events.flow-control.enabled:false}") boolean enabled,
+                                @Value("${todo.events.flow-control.spill-capacity:10000}") int spillCapacity,
+                                @Value("${todo.events.flow-control.shed-routing-keys:}") List<String> sheddableRoutingKeys) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.confirmingPublisher = confirmingPublisher.getIfAvailable();
+        this.enabled = enabled;
+        this.sheddableRoutingKeys = Set.copyOf(sheddableRoutingKeys);
+        this.spillBuffer = new ArrayBlockingQueue<>(spillCapacity);
+
+        Meter meter = GlobalOpenTelemetry.get().getMeter("event-publisher");
+        this.shedCounter = meter.counterBuilder("todo.events.shed")
+            .setDescription("Non-critical events dropped while the broker applied flow control")
+            .build();
+        this.overflowCounter = meter.counterBuilder("todo.events.spill.overflow")
+            .setDescription("Events dropped because the spill buffer was full")
+            .build();
+        meter.gaugeBuilder("todo.events.spill.size")
+            .setDescription("Events waiting in the spill buffer")
+            .ofLongs()
+            .buildWithCallback(measurement -> measurement.record(spillBuffer.size()));
+        meter.gaugeBuilder("rabbitmq.connection.blocked")
+            .setDescription("1 while the broker has blocked the publishing connection, 0 otherwise")
+            .ofLongs()
+            .buildWithCallback(measurement -> measurement.record(blocked ? 1 : 0));
+    }
+
+    /**
+     * Whether events should go through {@link #divert(String, TodoEvent)} instead of being sent.
+     */
+    public boolean shouldDivert() {
+        return (enabled && blocked) || !spillBuffer.isEmpty();
+    }
+
+    public void divert(String routingKey, TodoEvent event) {
+        if (blocked && sheddableRoutingKeys.contains(routingKey)) {
+            shedCounter.add(1, Attributes.of(EVENT_TYPE, routingKey));
+            return;
+        }
+        spill(routingKey, event);
+    }
+
+    /**
+     * Defers the event to the spill buffer without shedding, for events the broker did not take
+     * in time. Later events are diverted behind it until the buffer has drained.
+     */
+    public void spill(String routingKey, TodoEvent event) {
+        if (!spillBuffer.offer(new SpilledEvent(routingKey, event))) {
+            overflowCounter.add(1, Attributes.of(EVENT_TYPE, routingKey));
+            logger.debug("Spill buffer full, dropping {} event for id: {}", routingKey, event.getId());
+        }
+    }
+
+    @EventListener
+    public void onBlocked(ConnectionBlockedEvent event) {
+        blocked = true;
+        logger.warn("Broker blocked publishing ({}), deferring events to the spill buffer", event.getReason());
+    }
+
+    @EventListener
+    public void onUnblocked(ConnectionUnblockedEvent event) {
+        blocked = false;
+        logger.info("Broker unblocked publishing, {} events to send from the spill buffer", spillBuffer.size());
+    }
+
+    @Scheduled(fixedDelayString = "${todo.events.flow-control.drain-interval-ms:1000}")
+    public void drain() {
+        drainLock.lock();
+        try {
+            drainSpillBuffer();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void drainSpillBuffer() {
+        SpilledEvent spilled;
+        while (!blocked && (spilled = spillBuffer.peek()) != null) {
+            try {
+                if (confirmingPublisher != null) {
+                    confirmingPublisher.send(spilled.routingKey(), spilled.event());
+                } else {
+                    rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, spilled.routingKey(), spilled.event());
+                }
+            } catch (Exception e) {
+                // Keep the event at the head and try again on the next run
+                logger.warn("Failed to send spilled {} event, {} events waiting", spilled.routingKey(), spillBuffer.size(), e);
+                return;
+            }
+            spillBuffer.poll();
+        }
+    }
+
+    private record SpilledEvent(String routingKey, TodoEvent event) {
+    }
+}
@@ -3,8 +3,11 @@ package xyz.kaspernissen.todo_java;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -13,21 +16,63 @@ public class RabbitMQConfig {
 
     public static final String EXCHANGE_NAME = "todo.events";
     public static final String ROUTING_KEY = "todo.created";
+    public static final String UPDATED_ROUTING_KEY = "todo.updated";
+    public static final String DELETED_ROUTING_KEY = "todo.deleted";
 
     @Bean
     public TopicExchange exchange() {
         return new TopicExchange(EXCHANGE_NAME, true, false);
     }
 
+    // Per-replica queue, removed when the replica disconnects
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    @ConditionalOnProperty(name = "todo.cache.enabled", havingValue = "true")
+    public AnonymousQueue cacheInvalidationQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("todo.cache.invalidation."));
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+    @ConditionalOnProperty(name = "todo.cache.enabled", havingValue = "true")
+    public Binding cacheInvalidationUpdatedBinding(AnonymousQueue cacheInvalidationQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(cacheInvalidationQueue).to(exchange).with(UPDATED_ROUTING_KEY);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "todo.cache.enabled", havingValue = "true")
+    public Binding cacheInvalidationDeletedBinding(AnonymousQueue cacheInvalidationQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(cacheInvalidationQueue).to(exchange).with(DELETED_ROUTING_KEY);
+    }
+
+    // Per-replica queue feeding the search index with every todo change
+    @Bean
+    @ConditionalOnProperty(name = "todo.search.enabled", havingValue = "true")
+    public AnonymousQueue searchIndexQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("todo.search.index."));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "todo.search.enabled", havingValue = "true")
+    public Binding searchIndexBinding(AnonymousQueue searchIndexQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(searchIndexQueue).to(exchange).with("todo.*");
+    }
+
+    // Incoming messages are decoded by content type, so JSON and binary events can coexist
+    @Bean
+    public MessageConverter messageConverter() {
+        Jackson2JsonMessageConverter jsonConverter = new Jackson2JsonMessageConverter();
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(jsonConverter);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, jsonConverter);
+        converter.addDelegate(TodoEventBinaryConverter.CONTENT_TYPE, new TodoEventBinaryConverter());
+        return converter;
+    }
+
+    @Bean
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory,
+                                         @Value("${todo.events.wire-format:json}") String wireFormat) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(jsonMessageConverter());
+        rabbitTemplate.setMessageConverter(new TodoIdHeaderMessageConverter("binary".equals(wireFormat)
+            ? new TodoEventBinaryConverter()
+            : new Jackson2JsonMessageConverter()));
         return rabbitTemplate;
     }
 }
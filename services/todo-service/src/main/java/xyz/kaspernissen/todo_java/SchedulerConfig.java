@@ -0,0 +1,27 @@
+package xyz.kaspernissen.todo_java;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+
+@Configuration
+public class SchedulerConfig {
+
+    /**
+     * Runs the blocking JDBC/RabbitMQ part of the reactive create endpoints. With
+     * spring.threads.virtual.enabled every task gets its own virtual thread, like Tomcat requests
+     * do in that mode; otherwise it is Reactor's bounded elastic pool of platform threads.
+     */
+    @Bean(destroyMethod = "")
+    public Scheduler blockingScheduler(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "todo-blocking");
+        }
+        return Schedulers.boundedElastic();
+    }
+}
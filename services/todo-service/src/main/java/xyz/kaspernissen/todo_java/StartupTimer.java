@@ -0,0 +1,78 @@
+package xyz.kaspernissen.todo_java;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures startup from JVM start: until the application is ready and until the first
+ * successful GET /todos has been served. Used to compare the plain and the CDS image
+ * (Dockerfile.cds); only the first request passes through the filter's timing code.
+ */
+@Component
+public class StartupTimer extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimer.class);
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final AtomicBoolean firstRequestServed = new AtomicBoolean();
+    private volatile long readyMs = -1;
+    private volatile long firstRequestMs = -1;
+
+    public StartupTimer() {
+        Meter meter = GlobalOpenTelemetry.get().getMeter("todo-startup");
+        meter.gaugeBuilder("app.startup.ready.time")
+            .setDescription("Time from JVM start until the application was ready")
+            .setUnit("ms")
+            .ofLongs()
+            .buildWithCallback(measurement -> {
+                if (readyMs >= 0) {
+                    measurement.record(readyMs);
+                }
+            });
+        meter.gaugeBuilder("app.startup.first_request.time")
+            .setDescription("Time from JVM start until the first GET /todos was served")
+            .setUnit("ms")
+            .ofLongs()
+            .buildWithCallback(measurement -> {
+                if (firstRequestMs >= 0) {
+                    measurement.record(firstRequestMs);
+                }
+            });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyMs = System.currentTimeMillis() - jvmStartMillis;
+        logger.info("Application ready {} ms after JVM start", readyMs);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return firstRequestServed.get();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, response);
+        if ("GET".equals(request.getMethod()) && "/todos".equals(request.getRequestURI())
+                && response.getStatus() < 400 && firstRequestServed.compareAndSet(false, true)) {
+            firstRequestMs = System.currentTimeMillis() - jvmStartMillis;
+            logger.info("First GET /todos served {} ms after JVM start", firstRequestMs);
+        }
+    }
+}
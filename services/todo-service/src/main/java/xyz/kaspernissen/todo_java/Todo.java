@@ -2,11 +2,16 @@ package xyz.kaspernissen.todo_java;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Data
 @NoArgsConstructor
 @Entity
 @Table(name = "todo")
+// Only takes effect when the second-level cache is enabled (jpa-cache profile)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = JpaCacheConfig.TODO_REGION)
 public class Todo {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,79 @@
+package xyz.kaspernissen.todo_java;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class TodoBatchWriter {
+
+    private static final String INSERT_PREFIX = "INSERT INTO todo (name) VALUES ";
+    private static final String UPDATE_NAME = "UPDATE todo SET name = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TodoBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts all todos with one multi-row INSERT and assigns the generated ids in order.
+     * MySQL hands out consecutive auto-increment values for a single multi-row insert, which
+     * is what lets the driver return one key per row.
+     */
+    public List<Todo> insertAll(List<Todo> todos) {
+        if (todos.isEmpty()) {
+            return todos;
+        }
+
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + todos.size() * 5);
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < todos.size(); i++) {
+            sql.append(i == 0 ? "(?)" : ", (?)");
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < todos.size(); i++) {
+                statement.setString(i + 1, todos.get(i).getName());
+            }
+            return statement;
+        }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < todos.size(); i++) {
+            todos.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        return todos;
+    }
+
+    /**
+     * Renames todos with one JDBC batch. Returns the ids that matched a row; with
+     * rewriteBatchedStatements the driver may report unknown counts, those ids are kept.
+     */
+    public List<Long> updateNames(Map<Long, String> namesById) {
+        if (namesById.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(namesById.keySet());
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_NAME, ids, ids.size(), (ps, id) -> {
+            ps.setString(1, namesById.get(id));
+            ps.setLong(2, id);
+        })[0];
+        List<Long> updated = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            if (counts[i] != 0) {
+                updated.add(ids.get(i));
+            }
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,95 @@
+package xyz.kaspernissen.todo_java;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Read-through cache for single todo lookups. Callers always get a copy, so mutating a
+ * returned todo never changes the cached one. Entries are evicted locally on write and on
+ * every replica through {@link TodoCacheInvalidationListener}.
+ * Misses are loaded on the calling thread outside of Caffeine's map locks (a synchronous
+ * loader runs inside ConcurrentHashMap.compute and would pin virtual threads during the query);
+ * concurrent misses for the same id still share one load.
+ */
+@Component
+public class TodoCache {
+
+    private final TodoRepository repository;
+    private final boolean enabled;
+    private final AsyncCache<Long, Todo> cache;
+
+    public TodoCache(TodoRepository repository,
+                     @Value("${todo.cache.enabled:false}") boolean enabled,
+                     @Value("${todo.cache.max-size:10000}") long maxSize,
+                     @Value("${todo.cache.ttl:5m}") Duration ttl) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .buildAsync();
+
+        if (enabled) {
+            Meter meter = GlobalOpenTelemetry.get().getMeter("todo-cache");
+            meter.counterBuilder("todo.cache.hits")
+                .setDescription("Number of todo lookups served from the cache")
+                .buildWithCallback(measurement -> measurement.record(cache.synchronous().stats().hitCount()));
+            meter.counterBuilder("todo.cache.misses")
+                .setDescription("Number of todo lookups that went to the database")
+                .buildWithCallback(measurement -> measurement.record(cache.synchronous().stats().missCount()));
+            meter.counterBuilder("todo.cache.evictions")
+                .setDescription("Number of todos evicted by size or TTL")
+                .buildWithCallback(measurement -> measurement.record(cache.synchronous().stats().evictionCount()));
+            meter.gaugeBuilder("todo.cache.size")
+                .setDescription("Approximate number of cached todos")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(cache.synchronous().estimatedSize()));
+        }
+    }
+
+    public Optional<Todo> findById(Long id) {
+        if (!enabled) {
+            return repository.findById(id);
+        }
+        CompletableFuture<Todo> loading = new CompletableFuture<>();
+        CompletableFuture<Todo> future = cache.get(id, (key, executor) -> loading);
+        if (future == loading) {
+            try {
+                // Caffeine drops futures completed with null, so missing todos are not cached
+                loading.complete(repository.findById(id).map(TodoCache::copyOf).orElse(null));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return Optional.ofNullable(future.join()).map(TodoCache::copyOf);
+        } catch (CompletionException e) {
+            // Another caller's load of the same id failed
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public void evict(Long id) {
+        if (enabled && id != null) {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    private static Todo copyOf(Todo todo) {
+        Todo copy = new Todo();
+        copy.setId(todo.getId());
+        copy.setName(todo.getName());
+        return copy;
+    }
+}
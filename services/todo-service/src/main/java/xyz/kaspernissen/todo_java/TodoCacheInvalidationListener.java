@@ -0,0 +1,25 @@
+package xyz.kaspernissen.todo_java;
+
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops cached todos when any replica updates or deletes them. Each replica consumes
+ * from its own auto-delete queue bound to the todo events exchange.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.cache.enabled", havingValue = "true")
+public class TodoCacheInvalidationListener {
+
+    private final TodoCache todoCache;
+
+    public TodoCacheInvalidationListener(TodoCache todoCache) {
+        this.todoCache = todoCache;
+    }
+
+    @RabbitListener(queues = "#{cacheInvalidationQueue.name}")
+    public void handleTodoChanged(TodoEvent todoEvent) {
+        todoCache.evict(todoEvent.getId());
+    }
+}
@@ -1,16 +1,27 @@
 package xyz.kaspernissen.todo_java;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import io.opentelemetry.api.GlobalOpenTelemetry;
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
 import io.opentelemetry.api.metrics.LongCounter;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.api.trace.Span;
@@ -19,16 +30,42 @@ import io.opentelemetry.api.trace.Span;
 @RequestMapping("/todos")
 public class TodoController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final AttributeKey<String> DB_OPERATION = AttributeKey.stringKey("db.operation");
+    private static final Attributes DB_OPERATION_CREATE = Attributes.of(DB_OPERATION, "create");
+    private static final Attributes DB_OPERATION_CREATE_BATCH = Attributes.of(DB_OPERATION, "create_batch");
+    private static final Attributes DB_OPERATION_UPDATE = Attributes.of(DB_OPERATION, "update");
+
     private final TodoRepository repository;
+    private final TodoCache todoCache;
+    private final TodoBatchWriter batchWriter;
     private final ValidationService validationService;
     private final EventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TodoWriteCoalescer writeCoalescer;
+    private final TodoSearchIndex searchIndex;
+    private final Scheduler blockingScheduler;
     private final Tracer tracer;
     private final LongCounter todoCreatedCounter;
+    private final DoubleHistogram dbSaveDuration;
+    private final int maxBatchSize;
 
-    public TodoController(TodoRepository repository, ValidationService validationService, EventPublisher eventPublisher) {
+    public TodoController(TodoRepository repository, TodoCache todoCache, TodoBatchWriter batchWriter,
+                          ValidationService validationService, EventPublisher eventPublisher,
+                          TransactionTemplate transactionTemplate, TodoWriteCoalescer writeCoalescer,
+                          TodoSearchIndex searchIndex, Scheduler blockingScheduler,
+                          @Value("${todo.batch.max-size:1000}") int maxBatchSize) {
         this.repository = repository;
+        this.todoCache = todoCache;
+        this.batchWriter = batchWriter;
+        this.maxBatchSize = maxBatchSize;
         this.validationService = validationService;
         this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.writeCoalescer = writeCoalescer;
+        this.searchIndex = searchIndex;
+        this.blockingScheduler = blockingScheduler;
 
         var openTelemetry = GlobalOpenTelemetry.get();
         this.tracer = openTelemetry.getTracer("todo-controller");
@@ -36,6 +73,11 @@ public class TodoController {
             .counterBuilder("todos.created")
             .setDescription("Number of todos created")
             .build();
+        this.dbSaveDuration = openTelemetry.getMeter("todo-controller")
+            .histogramBuilder("todo.db.save.duration")
+            .setDescription("Latency of todo writes to the database")
+            .setUnit("ms")
+            .build();
     }
 
     @GetMapping
@@ -43,59 +85,194 @@ public class TodoController {
         return repository.findAll(pageable);
     }
 
+    /**
+     * Keyset listing, selected by the {@code limit} parameter. Start after a raw todo id
+     * ({@code after}) or continue from the {@code next} token of a previous page ({@code cursor}).
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<TodoCursorPage> getTodosAfter(@RequestParam(required = false) Long after,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam int limit) {
+        if (limit <= 0 || limit > MAX_CURSOR_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        long afterId;
+        try {
+            afterId = cursor != null ? TodoCursorPage.decodeCursor(cursor) : (after != null ? after : 0L);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Fetch one extra row to learn whether another page exists without counting
+        List<Todo> todos = repository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit + 1));
+        String next = null;
+        if (todos.size() > limit) {
+            todos = todos.subList(0, limit);
+            next = TodoCursorPage.encodeCursor(todos.get(limit - 1).getId());
+        }
+        return ResponseEntity.ok(new TodoCursorPage(todos, next));
+    }
+
+    /**
+     * Ranked substring, word-prefix and fuzzy search over todo names. Served from the in-process
+     * index when {@code todo.search.enabled} is set and the index is built, otherwise by a LIKE scan.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Todo>> searchTodos(@RequestParam String q,
+                                                  @RequestParam(defaultValue = "20") int limit) {
+        if (q.isBlank() || limit <= 0 || limit > MAX_SEARCH_RESULTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!searchIndex.isReady()) {
+            return ResponseEntity.ok(repository.findByNameContainingIgnoreCase(q.strip(), Limit.of(limit)));
+        }
+
+        List<Long> ids = searchIndex.search(q, limit);
+        Map<Long, Todo> todosById = new HashMap<>();
+        for (Todo todo : repository.findAllById(ids)) {
+            todosById.put(todo.getId(), todo);
+        }
+        // Keep the ranking; todos deleted since they were indexed are skipped
+        List<Todo> todos = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Todo todo = todosById.get(id);
+            if (todo != null) {
+                todos.add(writeCoalescer.applyPending(todo));
+            }
+        }
+        return ResponseEntity.ok(todos);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Todo> getTodoById(@PathVariable Long id) {
         if (id == null || id <= 0) {
             return ResponseEntity.badRequest().build();
         }
-        return repository.findById(id)
+        return todoCache.findById(id)
+                .map(writeCoalescer::applyPending)
                 .map(ResponseEntity::ok)
                 .orElseThrow(() -> new ResourceNotFoundException("Todo not found with id: " + id));
     }
 
     @PostMapping
-    public ResponseEntity<Todo> createTodo(@Valid @RequestBody Todo todo) {
+    public Mono<ResponseEntity<Todo>> createTodo(@Valid @RequestBody Todo todo) {
         Span span = tracer.spanBuilder("create_todo").startSpan();
 
-        try {
+        if (todo.getName() == null || todo.getName().trim().isEmpty()) {
+            span.addEvent("Invalid todo name provided");
+            span.end();
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        todo.setId(null);
+        String todoName = todo.getName().trim();
+
+        span.setAttribute("todo.name", todoName);
+        span.setAttribute("todo.name.length", todoName.length());
+        // Example: Adding user email (sensitive data that will be redacted by collector)
+        span.setAttribute("user.email", "user@example.com");
+
+        // Validate todo name using external service (creates distributed trace)
+        // Controlled by VALIDATION_SERVICE_ENABLED environment variable.
+        // The servlet thread is released while validation is pending; the blocking
+        // JDBC/RabbitMQ work continues on the blocking scheduler (virtual threads if enabled).
+        return validationService.validateTodoName(todoName)
+            .publishOn(blockingScheduler)
+            .map(isValid -> {
+                if (!isValid) {
+                    span.addEvent("Todo name validation failed");
+                    span.setAttribute("validation.failed", true);
+                    return ResponseEntity.badRequest().<Todo>body(null);
+                }
+
+                span.addEvent("Todo name validation passed");
+
+                // The outbox row is written in the insert's transaction, direct sends happen after commit
+                Todo savedTodo = transactionTemplate.execute(status -> {
+                    long saveStart = System.nanoTime();
+                    Todo saved = repository.save(todo);
+                    recordDbSave(saveStart, DB_OPERATION_CREATE);
+                    eventPublisher.publishTodoCreated(saved);
+                    return saved;
+                });
+
+                todoCreatedCounter.add(1);
+                span.addEvent("Todo created successfully");
+
+                return ResponseEntity.status(HttpStatus.CREATED).body(savedTodo);
+            })
+            .doOnError(span::recordException)
+            .doFinally(signal -> span.end());
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<List<Todo>>> createTodos(@RequestBody List<@Valid Todo> todos) {
+        if (todos.isEmpty() || todos.size() > maxBatchSize) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        List<String> todoNames = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
             if (todo.getName() == null || todo.getName().trim().isEmpty()) {
-                span.addEvent("Invalid todo name provided");
-                return ResponseEntity.badRequest().build();
+                return Mono.just(ResponseEntity.badRequest().build());
             }
-
             todo.setId(null);
-            String todoName = todo.getName().trim();
-
-            span.setAttribute("todo.name", todoName);
-            span.setAttribute("todo.name.length", todoName.length());
-            // Example: Adding user email (sensitive data that will be redacted by collector)
-            span.setAttribute("user.email", "user@example.com");
-
-            // Validate todo name using external service (creates distributed trace)
-            // Controlled by VALIDATION_SERVICE_ENABLED environment variable
-            if (!validationService.isValidTodoName(todoName)) {
-                span.addEvent("Todo name validation failed");
-                span.setAttribute("validation.failed", true);
-                return ResponseEntity.badRequest().body(null);
-            }
+            todo.setName(todo.getName().trim());
+            todoNames.add(todo.getName());
+        }
 
-            span.addEvent("Todo name validation passed");
-            Todo savedTodo = repository.save(todo);
+        Span span = tracer.spanBuilder("create_todos_batch")
+            .setAttribute("todo.batch.size", todos.size())
+            .startSpan();
 
-            // Publish event to RabbitMQ
-            eventPublisher.publishTodoCreated(savedTodo);
+        // One batched validation, then a single multi-row insert and one burst of events
+        return validationService.validateTodoNames(todoNames)
+            .publishOn(blockingScheduler)
+            .map(results -> {
+                if (results.containsValue(false)) {
+                    span.addEvent("Todo name validation failed");
+                    span.setAttribute("validation.failed", true);
+                    return ResponseEntity.badRequest().<List<Todo>>body(null);
+                }
 
-            todoCreatedCounter.add(1);
-            span.addEvent("Todo created successfully");
+                List<Todo> savedTodos = transactionTemplate.execute(status -> {
+                    long saveStart = System.nanoTime();
+                    List<Todo> saved = batchWriter.insertAll(todos);
+                    recordDbSave(saveStart, DB_OPERATION_CREATE_BATCH);
+                    eventPublisher.publishTodosCreated(saved);
+                    return saved;
+                });
 
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedTodo);
+                todoCreatedCounter.add(savedTodos.size());
+                span.addEvent("Todos created successfully");
 
-        } catch (Exception e) {
-            span.recordException(e);
-            throw e;
-        } finally {
-            span.end();
+                return ResponseEntity.status(HttpStatus.CREATED).body(savedTodos);
+            })
+            .doOnError(span::recordException)
+            .doFinally(signal -> span.end());
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<Void> deleteTodos(@RequestBody List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                return ResponseEntity.badRequest().build();
+            }
         }
+
+        ids.forEach(writeCoalescer::discard);
+        // Unknown ids are ignored, only todos that exist produce delete events
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Todo> todos = repository.findAllById(ids);
+            eventPublisher.publishTodosDeleted(todos);
+            repository.deleteAllByIdInBatch(todos.stream().map(Todo::getId).toList());
+        });
+        ids.forEach(todoCache::evict);
+        return ResponseEntity.noContent().build();
     }
 
     @PutMapping("/{id}")
@@ -106,10 +283,22 @@ public class TodoController {
         if (todoDetails.getName() == null || todoDetails.getName().trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
-        return repository.findById(id)
+        return todoCache.findById(id)
                 .map(todo -> {
                     todo.setName(todoDetails.getName().trim());
-                    return ResponseEntity.ok(repository.save(todo));
+                    // Write-behind mode: the rename is buffered and flushed with later renames of this todo
+                    if (writeCoalescer.rename(id, todo.getName())) {
+                        return ResponseEntity.ok(todo);
+                    }
+                    Todo savedTodo = transactionTemplate.execute(status -> {
+                        long saveStart = System.nanoTime();
+                        Todo saved = repository.save(todo);
+                        recordDbSave(saveStart, DB_OPERATION_UPDATE);
+                        eventPublisher.publishTodoUpdated(saved);
+                        return saved;
+                    });
+                    todoCache.evict(id);
+                    return ResponseEntity.ok(savedTodo);
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Todo not found with id: " + id));
     }
@@ -119,13 +308,20 @@ public class TodoController {
         if (id == null || id <= 0) {
             return ResponseEntity.badRequest().build();
         }
-        Todo todo = repository.findById(id)
+        Todo todo = todoCache.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Todo not found with id: " + id));
 
-        // Publish delete event to RabbitMQ before deleting
-        eventPublisher.publishTodoDeleted(todo);
-
-        repository.delete(todo);
+        writeCoalescer.discard(id);
+        // The delete event is sent once the delete has committed (or stored in the outbox with it)
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishTodoDeleted(todo);
+            repository.delete(todo);
+        });
+        todoCache.evict(id);
         return ResponseEntity.noContent().build();
     }
+
+    private void recordDbSave(long startNanos, Attributes operation) {
+        dbSaveDuration.record((System.nanoTime() - startNanos) / 1_000_000.0, operation);
+    }
 }
@@ -0,0 +1,46 @@
+package xyz.kaspernissen.todo_java;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a keyset listing. {@code next} is an opaque continuation token for the
+ * following page and is {@code null} on the last page; there is deliberately no total count.
+ */
+public class TodoCursorPage {
+
+    private static final String TOKEN_PREFIX = "todo:";
+
+    private final List<Todo> items;
+    private final String next;
+
+    public TodoCursorPage(List<Todo> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<Todo> getItems() {
+        return items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((TOKEN_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encodeCursor(long)}
+     */
+    public static long decodeCursor(String cursor) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (!decoded.startsWith(TOKEN_PREFIX)) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return Long.parseLong(decoded.substring(TOKEN_PREFIX.length()));
+    }
+}
@@ -1,7 +1,9 @@
 package xyz.kaspernissen.todo_java;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.Instant;
+import java.util.UUID;
 
 public class TodoEvent {
 
@@ -11,16 +13,31 @@ public class TodoEvent {
     @JsonProperty("name")
     private String name;
 
+    // ISO-8601 form, formatted or parsed lazily from the instant so binary messages skip it
     @JsonProperty("timestamp")
     private String timestamp;
 
+    @JsonIgnore
+    private Instant instant;
+
+    // Unique per event and kept on redelivery, consumers deduplicate on it
+    @JsonProperty("eventId")
+    private UUID eventId;
+
     public TodoEvent() {
     }
 
     public TodoEvent(Long id, String name) {
         this.id = id;
         this.name = name;
-        this.timestamp = Instant.now().toString();
+        this.instant = Instant.now();
+        this.eventId = newEventId();
+    }
+
+    // Random (version 4) UUID from SecureRandom: ids must stay unique across replicas and
+    // restarts, which a ThreadLocalRandom seed does not guarantee
+    static UUID newEventId() {
+        return UUID.randomUUID();
     }
 
     public Long getId() {
@@ -40,11 +57,37 @@ public class TodoEvent {
     }
 
     public String getTimestamp() {
+        if (timestamp == null && instant != null) {
+            timestamp = instant.toString();
+        }
         return timestamp;
     }
 
     public void setTimestamp(String timestamp) {
         this.timestamp = timestamp;
+        this.instant = null;
+    }
+
+    public UUID getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(UUID eventId) {
+        this.eventId = eventId;
+    }
+
+    @JsonIgnore
+    public Instant getInstant() {
+        if (instant == null && timestamp != null) {
+            instant = Instant.parse(timestamp);
+        }
+        return instant;
+    }
+
+    @JsonIgnore
+    public void setInstant(Instant instant) {
+        this.instant = instant;
+        this.timestamp = null;
     }
 
     @Override
@@ -52,7 +95,8 @@ public class TodoEvent {
         return "TodoEvent{" +
                 "id=" + id +
                 ", name='" + name + '\'' +
-                ", timestamp='" + timestamp + '\'' +
+                ", timestamp='" + getTimestamp() + '\'' +
+                ", eventId=" + eventId +
                 '}';
     }
 }
@@ -0,0 +1,108 @@
+package xyz.kaspernissen.todo_java;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of {@link TodoEvent}, identified by {@link #CONTENT_TYPE}.
+ * Layout (big-endian): version byte, presence flags byte, then the present fields in order:
+ * id (int64), timestamp as epoch nanoseconds (int64), name as int32 length + UTF-8 bytes,
+ * event id as two int64 (most, least significant bits). Decoders ignore trailing fields they
+ * do not know, so fields are only ever appended.
+ * The notification service decodes with its own copy of this class, change both together.
+ */
+public class TodoEventBinaryConverter implements MessageConverter {
+
+    public static final String CONTENT_TYPE = "application/x-todo-event";
+
+    private static final byte VERSION = 1;
+    private static final int HAS_ID = 1;
+    private static final int HAS_TIMESTAMP = 1 << 1;
+    private static final int HAS_NAME = 1 << 2;
+    private static final int HAS_EVENT_ID = 1 << 3;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (!(object instanceof TodoEvent event)) {
+            throw new MessageConversionException("Cannot encode " + object.getClass().getName() + " as " + CONTENT_TYPE);
+        }
+
+        Instant instant = event.getInstant();
+        byte[] name = event.getName() != null ? event.getName().getBytes(StandardCharsets.UTF_8) : null;
+
+        UUID eventId = event.getEventId();
+        int flags = (event.getId() != null ? HAS_ID : 0)
+            | (instant != null ? HAS_TIMESTAMP : 0)
+            | (name != null ? HAS_NAME : 0)
+            | (eventId != null ? HAS_EVENT_ID : 0);
+        int size = 2
+            + (event.getId() != null ? Long.BYTES : 0)
+            + (instant != null ? Long.BYTES : 0)
+            + (name != null ? Integer.BYTES + name.length : 0)
+            + (eventId != null ? 2 * Long.BYTES : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION);
+        buffer.put((byte) flags);
+        if (event.getId() != null) {
+            buffer.putLong(event.getId());
+        }
+        if (instant != null) {
+            buffer.putLong(Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano()));
+        }
+        if (name != null) {
+            buffer.putInt(name.length);
+            buffer.put(name);
+        }
+        if (eventId != null) {
+            buffer.putLong(eventId.getMostSignificantBits());
+            buffer.putLong(eventId.getLeastSignificantBits());
+        }
+
+        messageProperties.setContentType(CONTENT_TYPE);
+        messageProperties.setContentLength(size);
+        return new Message(buffer.array(), messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        ByteBuffer buffer = ByteBuffer.wrap(message.getBody());
+        try {
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new MessageConversionException("Unsupported " + CONTENT_TYPE + " version: " + version);
+            }
+            int flags = buffer.get();
+
+            TodoEvent event = new TodoEvent();
+            if ((flags & HAS_ID) != 0) {
+                event.setId(buffer.getLong());
+            }
+            if ((flags & HAS_TIMESTAMP) != 0) {
+                long epochNanos = buffer.getLong();
+                event.setInstant(Instant.ofEpochSecond(
+                    Math.floorDiv(epochNanos, NANOS_PER_SECOND), Math.floorMod(epochNanos, NANOS_PER_SECOND)));
+            }
+            if ((flags & HAS_NAME) != 0) {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                event.setName(new String(name, StandardCharsets.UTF_8));
+            }
+            if ((flags & HAS_EVENT_ID) != 0) {
+                event.setEventId(new UUID(buffer.getLong(), buffer.getLong()));
+            }
+            return event;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new MessageConversionException("Truncated " + CONTENT_TYPE + " message", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package xyz.kaspernissen.todo_java;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * Adds the todo id as a message header so consumers can shard on it (the consistent-hash
+ * exchange in notification-service hashes this header) without decoding the body. The event
+ * id becomes the AMQP message id.
+ */
+public class TodoIdHeaderMessageConverter implements MessageConverter {
+
+    public static final String TODO_ID_HEADER = "x-todo-id";
+
+    private final MessageConverter delegate;
+
+    public TodoIdHeaderMessageConverter(MessageConverter delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (object instanceof TodoEvent event && event.getId() != null) {
+            messageProperties.setHeader(TODO_ID_HEADER, event.getId().toString());
+        }
+        if (object instanceof TodoEvent event && event.getEventId() != null) {
+            messageProperties.setMessageId(event.getEventId().toString());
+        }
+        return delegate.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        return delegate.fromMessage(message);
+    }
+}
@@ -2,8 +2,10 @@ package xyz.kaspernissen.todo_java;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TodoJavaApplication {
 
 	public static void main(String[] args) {
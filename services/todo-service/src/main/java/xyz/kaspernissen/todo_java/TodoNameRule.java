@@ -0,0 +1,14 @@
+package xyz.kaspernissen.todo_java;
+
+/**
+ * A local check on a (normalized) todo name, evaluated before the remote validation service
+ * is called. Rules that cannot decide return {@link Verdict#UNDECIDED} and the next rule is
+ * asked. Additional rules can be plugged in by declaring beans of this type.
+ */
+@FunctionalInterface
+public interface TodoNameRule {
+
+    enum Verdict { VALID, INVALID, UNDECIDED }
+
+    Verdict evaluate(String todoName);
+}
@@ -0,0 +1,82 @@
+package xyz.kaspernissen.todo_java;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable, compiled set of {@link TodoNameRule}s evaluated in order; the first rule that
+ * decides wins. Built from {@link Definition}, which comes from properties or the rules file.
+ */
+final class TodoNameRules {
+
+    static final TodoNameRules NONE = new TodoNameRules(List.of());
+
+    private final List<TodoNameRule> rules;
+
+    private TodoNameRules(List<TodoNameRule> rules) {
+        this.rules = rules;
+    }
+
+    TodoNameRule.Verdict evaluate(String todoName) {
+        for (TodoNameRule rule : rules) {
+            TodoNameRule.Verdict verdict = rule.evaluate(todoName);
+            if (verdict != TodoNameRule.Verdict.UNDECIDED) {
+                return verdict;
+            }
+        }
+        return TodoNameRule.Verdict.UNDECIDED;
+    }
+
+    /**
+     * Order: length limits, blocklist, deny patterns, then allow patterns, then any custom
+     * rules. Rejections are checked first so an allow pattern can never let a blocked name through.
+     */
+    static TodoNameRules compile(Definition definition, List<TodoNameRule> customRules) {
+        List<TodoNameRule> rules = new ArrayList<>();
+        rules.add(length(definition.minLength(), definition.maxLength()));
+        if (!definition.blocklist().isEmpty()) {
+            rules.add(blocklist(new AhoCorasick(definition.blocklist())));
+        }
+        for (String regex : definition.denyPatterns()) {
+            rules.add(matching(Pattern.compile(regex), TodoNameRule.Verdict.INVALID));
+        }
+        for (String regex : definition.allowPatterns()) {
+            rules.add(fullyMatching(Pattern.compile(regex), TodoNameRule.Verdict.VALID));
+        }
+        rules.addAll(customRules);
+        return new TodoNameRules(List.copyOf(rules));
+    }
+
+    private static TodoNameRule length(int minLength, int maxLength) {
+        return name -> name.length() < minLength || name.length() > maxLength
+            ? TodoNameRule.Verdict.INVALID
+            : TodoNameRule.Verdict.UNDECIDED;
+    }
+
+    private static TodoNameRule blocklist(AhoCorasick blocklist) {
+        return name -> blocklist.containsAny(name) ? TodoNameRule.Verdict.INVALID : TodoNameRule.Verdict.UNDECIDED;
+    }
+
+    private static TodoNameRule matching(Pattern pattern, TodoNameRule.Verdict verdict) {
+        return name -> pattern.matcher(name).find() ? verdict : TodoNameRule.Verdict.UNDECIDED;
+    }
+
+    private static TodoNameRule fullyMatching(Pattern pattern, TodoNameRule.Verdict verdict) {
+        return name -> pattern.matcher(name).matches() ? verdict : TodoNameRule.Verdict.UNDECIDED;
+    }
+
+    /**
+     * Deny patterns reject a name when they match anywhere in it, allow patterns accept it
+     * only when they match the whole name.
+     */
+    record Definition(int minLength, int maxLength, List<String> blocklist,
+                      List<String> denyPatterns, List<String> allowPatterns) {
+
+        Definition {
+            blocklist = blocklist != null ? List.copyOf(blocklist) : List.of();
+            denyPatterns = denyPatterns != null ? List.copyOf(denyPatterns) : List.of();
+            allowPatterns = allowPatterns != null ? List.copyOf(allowPatterns) : List.of();
+        }
+    }
+}
@@ -1,8 +1,17 @@
 package xyz.kaspernissen.todo_java;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TodoRepository extends JpaRepository<Todo, Long> {
-}
\ No newline at end of file
+
+    // Range scan on the primary key index, cost is independent of how deep the page is
+    List<Todo> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // LIKE '%name%' full scan, only used for search until the search index has been built
+    List<Todo> findByNameContainingIgnoreCase(String name, Limit limit);
+}
@@ -0,0 +1,219 @@
+package xyz.kaspernissen.todo_java;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.AsyncConsumerRestartedEvent;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process search index over todo names, fed by {@link TodoSearchIndexListener} from the todo
+ * events of all replicas and rebuilt from MySQL on startup. Until the first rebuild has finished
+ * {@link #isReady()} is false and callers fall back to the database.
+ * The listener's queue is auto-delete, so events published while it was gone (broker restart,
+ * connection loss) are lost: the index is rebuilt whenever the listener's consumer is restarted,
+ * and every reconcile-interval-ms to catch anything else that slipped through.
+ */
+@Component
+public class TodoSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoSearchIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final boolean enabled;
+    private final int rebuildBatchSize;
+    private final DoubleHistogram searchDuration;
+
+    private volatile TrigramIndex index = new TrigramIndex();
+    private volatile boolean ready;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // A lock rather than a monitor: TrigramIndex may park on its write lock, which would pin a virtual thread
+    private final Lock changeLock = new ReentrantLock();
+    // Events applied while a rebuild is loading, replayed over the loaded rows; guarded by changeLock
+    private Map<Long, Optional<String>> changesDuringRebuild;
+
+    public TodoSearchIndex(JdbcTemplate jdbcTemplate,
+                           RabbitListenerEndpointRegistry listenerRegistry,
+                           @Value("${todo.search.enabled:false}") boolean enabled,
+                           @Value("${todo.search.rebuild-batch-size:10000}") int rebuildBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.listenerRegistry = listenerRegistry;
+        this.enabled = enabled;
+        this.rebuildBatchSize = rebuildBatchSize;
+
+        Meter meter = GlobalOpenTelemetry.get().getMeter("todo-search");
+        this.searchDuration = meter.histogramBuilder("todo.search.duration")
+            .setDescription("Latency of todo searches served from the in-process index")
+            .setUnit("ms")
+            .build();
+        if (enabled) {
+            meter.gaugeBuilder("todo.search.index.size")
+                .setDescription("Todos in the search index")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(index.size()));
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Ids of the best matching todos, best first.
+     */
+    public List<Long> search(String query, int limit) {
+        long startNanos = System.nanoTime();
+        List<Long> ids = index.search(query, limit).stream().map(TrigramIndex.Hit::id).toList();
+        searchDuration.record((System.nanoTime() - startNanos) / 1_000_000.0);
+        return ids;
+    }
+
+    public void put(long id, String name) {
+        if (!enabled) {
+            return;
+        }
+        changeLock.lock();
+        try {
+            index.put(id, name);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.put(id, Optional.of(name));
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    public void remove(long id) {
+        if (!enabled) {
+            return;
+        }
+        changeLock.lock();
+        try {
+            index.remove(id);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.put(id, Optional.empty());
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuildInBackground("startup");
+    }
+
+    @EventListener
+    public void rebuildAfterConsumerRestart(AsyncConsumerRestartedEvent event) {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(TodoSearchIndexListener.LISTENER_ID);
+        if (container != null && event.getSource() == container) {
+            rebuildInBackground("listener consumer restart");
+        }
+    }
+
+    @Scheduled(initialDelayString = "${todo.search.reconcile-interval-ms:600000}",
+        fixedDelayString = "${todo.search.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        rebuildInBackground("periodic reconciliation");
+    }
+
+    // Off the caller's thread: a rebuild takes far longer than the other jobs on the shared scheduler thread
+    private void rebuildInBackground(String reason) {
+        if (!enabled || rebuilding.get()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            logger.debug("Rebuilding todo search index after {}", reason);
+            rebuild();
+        }, "todo-search-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Loads all todos into a fresh index in primary key order, one short query per chunk, then
+     * swaps it in. Events received meanwhile keep updating the live index and are replayed over
+     * the fresh one, so a row read before it changed does not win.
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            doRebuild();
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void doRebuild() {
+        changeLock.lock();
+        try {
+            changesDuringRebuild = new HashMap<>();
+        } finally {
+            changeLock.unlock();
+        }
+        long startNanos = System.nanoTime();
+        TrigramIndex fresh = new TrigramIndex();
+        try {
+            long lastId = 0;
+            int loaded;
+            do {
+                long[] maxId = {lastId};
+                int[] count = {0};
+                jdbcTemplate.query("SELECT id, name FROM todo WHERE id > ? ORDER BY id LIMIT ?", rs -> {
+                    maxId[0] = rs.getLong(1);
+                    fresh.put(maxId[0], rs.getString(2));
+                    count[0]++;
+                }, lastId, rebuildBatchSize);
+                lastId = maxId[0];
+                loaded = count[0];
+            } while (loaded == rebuildBatchSize);
+        } catch (Exception e) {
+            logger.error("Failed to rebuild the todo search index, searches keep using the database", e);
+            changeLock.lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                changeLock.unlock();
+            }
+            return;
+        }
+
+        changeLock.lock();
+        try {
+            changesDuringRebuild.forEach((id, name) -> {
+                if (name.isPresent()) {
+                    fresh.put(id, name.get());
+                } else {
+                    fresh.remove(id);
+                }
+            });
+            changesDuringRebuild = null;
+            index = fresh;
+            ready = true;
+        } finally {
+            changeLock.unlock();
+        }
+        logger.info("Rebuilt todo search index with {} todos in {} ms",
+            fresh.size(), (System.nanoTime() - startNanos) / 1_000_000);
+    }
+}
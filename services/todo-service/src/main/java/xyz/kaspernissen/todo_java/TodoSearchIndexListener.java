@@ -0,0 +1,33 @@
+package xyz.kaspernissen.todo_java;
+
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the search index in step with the todo events of every replica, consumed from this
+ * replica's own auto-delete queue.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.search.enabled", havingValue = "true")
+public class TodoSearchIndexListener {
+
+    static final String LISTENER_ID = "todo-search-index";
+
+    private final TodoSearchIndex searchIndex;
+
+    public TodoSearchIndexListener(TodoSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @RabbitListener(id = LISTENER_ID, queues = "#{searchIndexQueue.name}")
+    public void handleTodoEvent(TodoEvent todoEvent, @Header(AmqpHeaders.RECEIVED_ROUTING_KEY) String routingKey) {
+        if (RabbitMQConfig.DELETED_ROUTING_KEY.equals(routingKey)) {
+            searchIndex.remove(todoEvent.getId());
+        } else if (todoEvent.getName() != null) {
+            searchIndex.put(todoEvent.getId(), todoEvent.getName());
+        }
+    }
+}
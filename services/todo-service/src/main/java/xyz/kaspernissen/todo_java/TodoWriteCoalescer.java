@@ -0,0 +1,224 @@
+package xyz.kaspernissen.todo_java;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind for PUT /todos/{id}. Renames are buffered per todo id and flushed every window
+ * with one batched UPDATE; a newer rename of the same todo replaces the buffered one, so an
+ * autosave burst costs a single row write and a single todo.updated event. Buffered and
+ * in-flight renames are applied to reads on this instance, so its own GETs see their writes;
+ * other replicas see the change after the flush. Buffered renames are lost if the pod dies.
+ */
+@Component
+public class TodoWriteCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoWriteCoalescer.class);
+
+    private final TodoBatchWriter batchWriter;
+    private final EventPublisher eventPublisher;
+    private final TodoCache todoCache;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean enabled;
+    private final long windowMs;
+    private final int maxPending;
+
+    private final Map<Long, PendingRename> pending = new ConcurrentHashMap<>();
+    // Renames taken by a running flush, visible to reads until the flush has committed
+    private final Map<Long, PendingRename> flushing = new ConcurrentHashMap<>();
+    // One flush at a time; a lock rather than a monitor, the flush blocks on JDBC and publishing
+    private final Lock flushLock = new ReentrantLock();
+    // Own thread, so the flush keeps its window however long other scheduled jobs run
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "todo-write-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongCounter receivedCounter;
+    private final LongCounter flushedCounter;
+    private final DoubleHistogram flushLag;
+
+    public TodoWriteCoalescer(TodoBatchWriter batchWriter,
+                              EventPublisher eventPublisher,
+                              TodoCache todoCache,
+                              TransactionTemplate transactionTemplate,
+                              EntityManagerFactory entityManagerFactory,
+                              @Value("${todo.updates.coalescing.enabled:false}") boolean enabled,
+                              @Value("${todo.updates.coalescing.window-ms:200}") long windowMs,
+                              @Value("${todo.updates.coalescing.max-pending:10000}") int maxPending) {
+        this.batchWriter = batchWriter;
+        this.eventPublisher = eventPublisher;
+        this.todoCache = todoCache;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+        this.maxPending = maxPending;
+
+        Meter meter = GlobalOpenTelemetry.get().getMeter("todo-controller");
+        this.receivedCounter = meter.counterBuilder("todo.updates.received")
+            .setDescription("Todo updates accepted into the write-behind buffer")
+            .build();
+        this.flushedCounter = meter.counterBuilder("todo.updates.flushed")
+            .setDescription("Row updates written by the write-behind flush; received / flushed is the coalescing ratio")
+            .build();
+        this.flushLag = meter.histogramBuilder("todo.updates.flush.lag")
+            .setDescription("Time from the first buffered update of a todo until its flush committed")
+            .setUnit("ms")
+            .build();
+        meter.gaugeBuilder("todo.updates.pending")
+            .setDescription("Todos with buffered updates")
+            .ofLongs()
+            .buildWithCallback(measurement -> measurement.record(pending.size()));
+    }
+
+    /**
+     * Buffers the rename. Returns {@code false} when write-behind is disabled or the buffer is
+     * full, in which case the caller writes synchronously. A todo that already has a buffered or
+     * in-flight rename is always buffered: a synchronous write could commit before the flush's
+     * UPDATE and then be overwritten by the older name. So the buffer may briefly hold up to
+     * twice max-pending todos.
+     */
+    public boolean rename(Long id, String name) {
+        if (!enabled) {
+            return false;
+        }
+        if (pending.size() >= maxPending && !pending.containsKey(id) && !flushing.containsKey(id)) {
+            return false;
+        }
+        pending.merge(id, new PendingRename(name, System.nanoTime()),
+            (buffered, latest) -> new PendingRename(latest.name(), buffered.firstBufferedNanos()));
+        receivedCounter.add(1);
+        return true;
+    }
+
+    /**
+     * Applies a buffered or in-flight rename to a todo read from the cache or database.
+     */
+    public Todo applyPending(Todo todo) {
+        if (!enabled) {
+            return todo;
+        }
+        PendingRename rename = pending.get(todo.getId());
+        if (rename == null) {
+            rename = flushing.get(todo.getId());
+        }
+        if (rename == null) {
+            return todo;
+        }
+        Todo copy = new Todo();
+        copy.setId(todo.getId());
+        copy.setName(rename.name());
+        return copy;
+    }
+
+    /**
+     * Drops the buffered rename of a todo that is being deleted.
+     */
+    public void discard(Long id) {
+        if (enabled) {
+            pending.remove(id);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            flushExecutor.scheduleWithFixedDelay(this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<Long, PendingRename> batch = new HashMap<>();
+        for (Long id : List.copyOf(pending.keySet())) {
+            // Into flushing before out of pending, so rename() and reads always see the id in one of them
+            PendingRename rename;
+            while ((rename = pending.get(id)) != null) {
+                flushing.put(id, rename);
+                if (pending.remove(id, rename)) {
+                    batch.put(id, rename);
+                    break;
+                }
+            }
+            if (rename == null) {
+                // Discarded meanwhile
+                flushing.remove(id);
+            }
+        }
+
+        Map<Long, String> namesById = new HashMap<>();
+        batch.forEach((id, rename) -> namesById.put(id, rename.name()));
+        try {
+            List<Long> updated = transactionTemplate.execute(status -> {
+                List<Long> ids = batchWriter.updateNames(namesById);
+                for (Long id : ids) {
+                    Todo todo = new Todo();
+                    todo.setId(id);
+                    todo.setName(namesById.get(id));
+                    eventPublisher.publishTodoUpdated(todo);
+                }
+                return ids;
+            });
+            flushedCounter.add(updated.size());
+            long now = System.nanoTime();
+            batch.forEach((id, rename) -> flushLag.record((now - rename.firstBufferedNanos()) / 1_000_000.0));
+        } catch (Exception e) {
+            logger.error("Failed to flush {} buffered todo updates, retrying on the next flush", batch.size(), e);
+            // A newer rename buffered in the meantime wins over the failed one
+            batch.forEach(pending::putIfAbsent);
+        } finally {
+            // Evict before the renames stop being overlaid, so no read can cache the old name
+            batch.keySet().forEach(id -> {
+                todoCache.evict(id);
+                entityManagerFactory.getCache().evict(Todo.class, id);
+            });
+            batch.forEach(flushing::remove);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // No new periodic flushes; the final one waits for a running flush on the lock
+        flushExecutor.shutdown();
+        flush();
+    }
+
+    private record PendingRename(String name, long firstBufferedNanos) {
+    }
+}
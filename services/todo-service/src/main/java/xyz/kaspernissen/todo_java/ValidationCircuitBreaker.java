@@ -0,0 +1,154 @@
+package xyz.kaspernissen.todo_java;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker for validation-service calls. Opens when the failure rate over
+ * the last {@code window-size} calls reaches the threshold, rejects calls while open, and after
+ * the open duration lets a single probe through: its outcome closes or re-opens the circuit.
+ * Errors, timeouts and error responses other than a 400 rejection count as failures. Disabled it permits everything.
+ */
+@Component
+public class ValidationCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationCircuitBreaker.class);
+    private static final AttributeKey<String> STATE = AttributeKey.stringKey("state");
+
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final LongCounter transitionsCounter;
+
+    // Outcomes of the most recent calls in CLOSED state, guarded by this
+    private final boolean[] window;
+    private int recordedCalls;
+    private int nextSlot;
+    private int failedCalls;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+    private volatile State state = State.CLOSED;
+
+    public ValidationCircuitBreaker(@Value("${validation.circuit-breaker.enabled:false}") boolean enabled,
+                                    @Value("${validation.circuit-breaker.window-size:20}") int windowSize,
+                                    @Value("${validation.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                    @Value("${validation.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                                    @Value("${validation.circuit-breaker.open-duration:10s}") Duration openDuration) {
+        this.enabled = enabled;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+
+        Meter meter = GlobalOpenTelemetry.get().getMeter("todo-service-validation-client");
+        this.transitionsCounter = meter.counterBuilder("validation.circuit_breaker.transitions")
+            .setDescription("Number of circuit breaker state changes, by new state")
+            .build();
+        meter.gaugeBuilder("validation.circuit_breaker.state")
+            .setDescription("Current circuit breaker state: 0 closed, 1 open, 2 half-open")
+            .ofLongs()
+            .buildWithCallback(measurement -> measurement.record(state.ordinal()));
+    }
+
+    /**
+     * Returns whether a call may go ahead. Every permitted call must be settled with exactly
+     * one of {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            transitionTo(State.CLOSED);
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recordedCalls >= minimumCalls && failedCalls >= failureRateThreshold * recordedCalls) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    /**
+     * Settles a permitted call that ended without a usable outcome (cancelled or not started).
+     */
+    public synchronized void onIgnored() {
+        if (enabled && state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recordedCalls == window.length) {
+            if (window[nextSlot]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        window[nextSlot] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        nextSlot = (nextSlot + 1) % window.length;
+    }
+
+    private void transitionTo(State newState) {
+        State previous = state;
+        state = newState;
+        if (newState == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        } else if (newState == State.CLOSED) {
+            recordedCalls = 0;
+            nextSlot = 0;
+            failedCalls = 0;
+        }
+        transitionsCounter.add(1, Attributes.of(STATE, newState.name().toLowerCase()));
+        logger.warn("Validation circuit breaker changed from {} to {}", previous, newState);
+    }
+}
@@ -0,0 +1,100 @@
+package xyz.kaspernissen.todo_java;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * AIMD limit on concurrent validation-service calls. Calls over the limit are rejected instead
+ * of queueing. The limit grows by about one per limit's worth of successful calls while it is
+ * actually in use, and is multiplied by the backoff ratio on every error or timeout, so a slow
+ * validation service quickly gets fewer concurrent requests. Disabled it permits everything.
+ */
+@Component
+public class ValidationConcurrencyLimiter {
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+
+    // Guarded by this
+    private double limit;
+    private int inFlight;
+
+    public ValidationConcurrencyLimiter(@Value("${validation.concurrency-limit.enabled:false}") boolean enabled,
+                                        @Value("${validation.concurrency-limit.initial:20}") int initialLimit,
+                                        @Value("${validation.concurrency-limit.min:1}") int minLimit,
+                                        @Value("${validation.concurrency-limit.max:200}") int maxLimit,
+                                        @Value("${validation.concurrency-limit.backoff-ratio:0.9}") double backoffRatio) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    // Not in the constructor: the callbacks call back into this object
+    @PostConstruct
+    void registerMetrics() {
+        Meter meter = GlobalOpenTelemetry.get().getMeter("todo-service-validation-client");
+        meter.gaugeBuilder("validation.concurrency.limit")
+            .setDescription("Current adaptive limit on concurrent validation calls")
+            .ofLongs()
+            .buildWithCallback(measurement -> measurement.record(getLimit()));
+        meter.gaugeBuilder("validation.concurrency.in_flight")
+            .setDescription("Number of validation calls currently in flight")
+            .ofLongs()
+            .buildWithCallback(measurement -> measurement.record(getInFlight()));
+    }
+
+    /**
+     * Returns whether a call may start. Every permitted call must be settled with exactly
+     * one of {@link #onSuccess()}, {@link #onDropped()} or {@link #onIgnored()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (!enabled) {
+            return;
+        }
+        // Only grow while the limit is the bottleneck, otherwise an idle service inflates it
+        if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        inFlight--;
+    }
+
+    public synchronized void onDropped() {
+        if (!enabled) {
+            return;
+        }
+        limit = Math.max(minLimit, limit * backoffRatio);
+        inFlight--;
+    }
+
+    public synchronized void onIgnored() {
+        if (enabled) {
+            inFlight--;
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
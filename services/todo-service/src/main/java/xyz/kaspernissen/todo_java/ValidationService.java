@@ -1,71 +1,238 @@
 package xyz.kaspernissen.todo_java;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.api.trace.Span;
 
+import java.text.Normalizer;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class ValidationService {
 
+    private static final Duration VALIDATION_TIMEOUT = Duration.ofSeconds(5);
+    private static final int BATCH_CONCURRENCY = 16;
+    private static final Mono<Boolean> VALID = Mono.just(true);
+    private static final Mono<Boolean> INVALID = Mono.just(false);
+    private static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("validation.outcome");
+    private static final Attributes OUTCOME_VALID = Attributes.of(OUTCOME, "valid");
+    private static final Attributes OUTCOME_INVALID = Attributes.of(OUTCOME, "invalid");
+    private static final Attributes OUTCOME_ERROR = Attributes.of(OUTCOME, "error");
+    private static final AttributeKey<String> REASON = AttributeKey.stringKey("reason");
+    private static final Attributes REJECTED_CIRCUIT_OPEN = Attributes.of(REASON, "circuit_open");
+    private static final Attributes REJECTED_CONCURRENCY_LIMIT = Attributes.of(REASON, "concurrency_limit");
+
     private final WebClient webClient;
     private final Tracer tracer;
+    private final DoubleHistogram validationDuration;
+    private final LongCounter rejectedCounter;
     private final boolean validationEnabled;
+    private final ValidationCircuitBreaker circuitBreaker;
+    private final ValidationConcurrencyLimiter concurrencyLimiter;
+    private final LocalValidationRules localRules;
+    // Result used when the validation service fails or a call is rejected without being made
+    private final boolean fallbackResult;
+    // Completed results are cached; in-flight futures are shared so identical concurrent lookups coalesce
+    private final AsyncCache<String, Boolean> resultCache;
 
     public ValidationService(WebClient.Builder webClientBuilder,
                            @Value("${validation.service.url:http://localhost:3001}") String validationServiceUrl,
-                           @Value("${validation.service.enabled:false}") boolean validationEnabled) {
+                           @Value("${validation.service.enabled:false}") boolean validationEnabled,
+                           @Value("${validation.cache.max-size:10000}") long cacheMaxSize,
+                           @Value("${validation.cache.ttl:60s}") Duration cacheTtl,
+                           ValidationCircuitBreaker circuitBreaker,
+                           ValidationConcurrencyLimiter concurrencyLimiter,
+                           LocalValidationRules localRules,
+                           @Value("${validation.fallback:fail-closed}") String fallback) {
         this.webClient = webClientBuilder
             .baseUrl(validationServiceUrl)
             .build();
         this.tracer = GlobalOpenTelemetry.get().getTracer("todo-service-validation-client");
+        this.validationDuration = GlobalOpenTelemetry.get().getMeter("todo-service-validation-client")
+            .histogramBuilder("validation.duration")
+            .setDescription("Latency of calls to the validation service")
+            .setUnit("ms")
+            .build();
+        this.rejectedCounter = GlobalOpenTelemetry.get().getMeter("todo-service-validation-client")
+            .counterBuilder("validation.rejected")
+            .setDescription("Validation calls rejected without reaching the validation service")
+            .build();
         this.validationEnabled = validationEnabled;
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.localRules = localRules;
+        this.fallbackResult = "fail-open".equalsIgnoreCase(fallback);
+        this.resultCache = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfterWrite(cacheTtl)
+            .buildAsync();
     }
 
-    public boolean isValidTodoName(String todoName) {
+    /**
+     * Validates the todo name without blocking the calling thread. Names the local rules can
+     * decide and cached results are returned immediately; failures and rejected calls are not cached and resolve to the
+     * fallback result ({@code false} when failing closed, {@code true} when failing open).
+     */
+    public Mono<Boolean> validateTodoName(String todoName) {
         // If validation is disabled, always return true
         if (!validationEnabled) {
-            return true;
+            return Mono.just(true);
         }
 
+        String key = normalize(todoName);
+        TodoNameRule.Verdict verdict = localRules.evaluate(key);
+        if (verdict != TodoNameRule.Verdict.UNDECIDED) {
+            return verdict == TodoNameRule.Verdict.VALID ? VALID : INVALID;
+        }
+        // suppressCancel: the future is shared by all waiters for this name, one of them going away
+        // must not cancel the call for the others
+        return Mono.fromFuture(() -> resultCache.get(key, (name, executor) -> callValidationService(name).toFuture()), true)
+            .onErrorReturn(fallbackResult);
+    }
+
+    /**
+     * Validates many names at once. Duplicates are collapsed and the remaining lookups run
+     * concurrently (the validation service has no bulk endpoint), each going through the cache.
+     * The result is keyed by the names as given.
+     */
+    public Mono<Map<String, Boolean>> validateTodoNames(Collection<String> todoNames) {
+        return Flux.fromIterable(new LinkedHashSet<>(todoNames))
+            .flatMap(name -> validateTodoName(name).map(valid -> Map.entry(name, valid)), BATCH_CONCURRENCY)
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    /**
+     * Blocking variant of {@link #validateTodoName(String)}.
+     */
+    public boolean isValidTodoName(String todoName) {
+        Boolean valid = validateTodoName(todoName).block();
+        return valid != null && valid;
+    }
+
+    /**
+     * Checks the circuit breaker and the concurrency limit before making the call, so an
+     * unhealthy or saturated validation service fails fast instead of after the timeout.
+     */
+    private Mono<Boolean> callValidationService(String todoName) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                rejectedCounter.add(1, REJECTED_CIRCUIT_OPEN);
+                return Mono.error(new ValidationRejectedException("circuit open"));
+            }
+            if (!concurrencyLimiter.tryAcquire()) {
+                circuitBreaker.onIgnored();
+                rejectedCounter.add(1, REJECTED_CONCURRENCY_LIMIT);
+                return Mono.error(new ValidationRejectedException("concurrency limit reached"));
+            }
+
+            AtomicBoolean settled = new AtomicBoolean();
+            return doCallValidationService(todoName)
+                .doOnNext(isValid -> {
+                    if (settled.compareAndSet(false, true)) {
+                        circuitBreaker.onSuccess();
+                        concurrencyLimiter.onSuccess();
+                    }
+                })
+                .doOnError(err -> {
+                    if (settled.compareAndSet(false, true)) {
+                        circuitBreaker.onFailure();
+                        concurrencyLimiter.onDropped();
+                    }
+                })
+                .doOnCancel(() -> {
+                    if (settled.compareAndSet(false, true)) {
+                        circuitBreaker.onIgnored();
+                        concurrencyLimiter.onIgnored();
+                    }
+                });
+        });
+    }
+
+    private Mono<Boolean> doCallValidationService(String todoName) {
         Span span = tracer.spanBuilder("call_validation_service")
             .setAttribute("todo.name", todoName)
             .setAttribute("service.call", "validation-service")
             .startSpan();
 
-        try {
-            ValidationRequest request = new ValidationRequest(todoName);
+        ValidationRequest request = new ValidationRequest(todoName);
 
-            ValidationResponse response = webClient
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return webClient
                 .post()
                 .uri("/validate/todo-name")
                 .bodyValue(request)
                 .retrieve()
                 .bodyToMono(ValidationResponse.class)
-                .timeout(Duration.ofSeconds(5))
-                .doOnSuccess(res -> span.addEvent("Validation service responded"))
-                .doOnError(err -> span.recordException(err))
-                .onErrorReturn(new ValidationResponse(false, "Validation service error"))
-                .block();
-
-            boolean isValid = response != null && response.isValid();
-            span.setAttribute("validation.result", isValid);
-            if (response != null) {
-                span.setAttribute("validation.message", response.getMessage());
-            }
-
-            return isValid;
+                .timeout(VALIDATION_TIMEOUT)
+                .doOnSuccess(response -> {
+                    span.addEvent("Validation service responded");
+                    if (response != null) {
+                        span.setAttribute("validation.message", response.getMessage());
+                    }
+                })
+                .map(ValidationResponse::isValid)
+                .onErrorResume(WebClientResponseException.class, err -> isRejection(err)
+                    ? Mono.just(false)
+                    : Mono.error(err))
+                .defaultIfEmpty(false)
+                .doOnNext(isValid -> {
+                    span.setAttribute("validation.result", isValid);
+                    validationDuration.record(elapsedMs(startNanos), isValid ? OUTCOME_VALID : OUTCOME_INVALID);
+                })
+                .doOnError(err -> {
+                    span.recordException(err);
+                    span.setAttribute("validation.result", false);
+                    validationDuration.record(elapsedMs(startNanos), OUTCOME_ERROR);
+                });
+        }).doFinally(signal -> span.end());
+    }
 
-        } catch (Exception e) {
-            span.recordException(e);
-            span.setAttribute("validation.result", false);
+    /**
+     * The validation service answers rejected names with 400 and a body with valid=false. Any
+     * other client error (wrong URL, auth, a proxy's 400 page) is a failed call: it is not
+     * cached and resolves to the fallback.
+     */
+    static boolean isRejection(WebClientResponseException err) {
+        if (err.getStatusCode().value() != 400) {
+            return false;
+        }
+        try {
+            JsonNode body = err.getResponseBodyAs(JsonNode.class);
+            return body != null && body.path("valid").isBoolean() && !body.get("valid").booleanValue();
+        } catch (RuntimeException e) {
             return false;
-        } finally {
-            span.end();
         }
     }
-}
\ No newline at end of file
+
+    private static double elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+
+    static String normalize(String todoName) {
+        return Normalizer.normalize(todoName.strip(), Normalizer.Form.NFC);
+    }
+
+    private static class ValidationRejectedException extends RuntimeException {
+        ValidationRejectedException(String reason) {
+            super("Validation call rejected: " + reason);
+        }
+    }
+}
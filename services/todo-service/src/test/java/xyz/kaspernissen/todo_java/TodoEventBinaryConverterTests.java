@@ -0,0 +1,51 @@
+package xyz.kaspernissen.todo_java;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TodoEventBinaryConverterTests {
+
+	private final TodoEventBinaryConverter converter = new TodoEventBinaryConverter();
+
+	@Test
+	void roundTripsAllFields() {
+		TodoEvent event = new TodoEvent(42L, "Kjøp melk ☕");
+		event.setInstant(Instant.parse("2025-03-01T10:15:30.123456789Z"));
+
+		Message message = converter.toMessage(event, new MessageProperties());
+		TodoEvent decoded = (TodoEvent) converter.fromMessage(message);
+
+		assertThat(message.getMessageProperties().getContentType()).isEqualTo(TodoEventBinaryConverter.CONTENT_TYPE);
+		assertThat(decoded.getId()).isEqualTo(42L);
+		assertThat(decoded.getName()).isEqualTo("Kjøp melk ☕");
+		assertThat(decoded.getTimestamp()).isEqualTo("2025-03-01T10:15:30.123456789Z");
+		assertThat(decoded.getEventId()).isNotNull().isEqualTo(event.getEventId());
+	}
+
+	@Test
+	void roundTripsMissingFields() {
+		TodoEvent decoded = (TodoEvent) converter.fromMessage(converter.toMessage(new TodoEvent(), new MessageProperties()));
+
+		assertThat(decoded.getId()).isNull();
+		assertThat(decoded.getName()).isNull();
+		assertThat(decoded.getTimestamp()).isNull();
+		assertThat(decoded.getEventId()).isNull();
+	}
+
+	@Test
+	void rejectsTruncatedMessage() {
+		Message message = converter.toMessage(new TodoEvent(42L, "Buy groceries"), new MessageProperties());
+		byte[] truncated = Arrays.copyOf(message.getBody(), message.getBody().length - 3);
+
+		assertThatThrownBy(() -> converter.fromMessage(new Message(truncated, new MessageProperties())))
+			.isInstanceOf(MessageConversionException.class);
+	}
+}
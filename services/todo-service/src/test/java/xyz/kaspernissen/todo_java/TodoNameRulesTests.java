@@ -0,0 +1,42 @@
+package xyz.kaspernissen.todo_java;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TodoNameRulesTests {
+
+	private final TodoNameRules rules = TodoNameRules.compile(new TodoNameRules.Definition(
+		1, 20, List.of("bad", "terrible", "awful", "he", "she", "hers"),
+		List.of("^\\d+$"), List.of("[\\p{L} ]+")), List.of());
+
+	@Test
+	void blocklistMatchesAnywhereIgnoringCase() {
+		assertThat(rules.evaluate("Not TERRIBLE at all")).isEqualTo(TodoNameRule.Verdict.INVALID);
+		assertThat(rules.evaluate("ushers")).isEqualTo(TodoNameRule.Verdict.INVALID);
+		assertThat(rules.evaluate("abadx")).isEqualTo(TodoNameRule.Verdict.INVALID);
+	}
+
+	@Test
+	void decidesByLengthAndPatterns() {
+		assertThat(rules.evaluate("")).isEqualTo(TodoNameRule.Verdict.INVALID);
+		assertThat(rules.evaluate("a".repeat(21))).isEqualTo(TodoNameRule.Verdict.INVALID);
+		assertThat(rules.evaluate("12345")).isEqualTo(TodoNameRule.Verdict.INVALID);
+		assertThat(rules.evaluate("Buy milk")).isEqualTo(TodoNameRule.Verdict.VALID);
+	}
+
+	@Test
+	void leavesUnmatchedNamesToTheValidationService() {
+		assertThat(rules.evaluate("Buy milk (2%)")).isEqualTo(TodoNameRule.Verdict.UNDECIDED);
+	}
+
+	@Test
+	void ahoCorasickFollowsFailLinks() {
+		AhoCorasick matcher = new AhoCorasick(List.of("abcd", "bce"));
+
+		assertThat(matcher.containsAny("xabce")).isTrue();
+		assertThat(matcher.containsAny("abcabd")).isFalse();
+	}
+}
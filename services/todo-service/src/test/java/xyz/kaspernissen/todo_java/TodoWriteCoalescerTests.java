@@ -0,0 +1,191 @@
+package xyz.kaspernissen.todo_java;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TodoWriteCoalescerTests {
+
+	private final TodoBatchWriter batchWriter = mock(TodoBatchWriter.class);
+	private final EventPublisher eventPublisher = mock(EventPublisher.class);
+	private final List<Map<Long, String>> flushedBatches = new ArrayList<>();
+
+	@BeforeEach
+	void recordFlushes() {
+		when(batchWriter.updateNames(anyMap())).thenAnswer(invocation -> {
+			Map<Long, String> namesById = invocation.getArgument(0);
+			flushedBatches.add(Map.copyOf(namesById));
+			return List.copyOf(namesById.keySet());
+		});
+	}
+
+	@Test
+	void lastRenameOfATodoWins() {
+		TodoWriteCoalescer coalescer = coalescer(10);
+
+		assertThat(coalescer.rename(1L, "first")).isTrue();
+		assertThat(coalescer.rename(1L, "second")).isTrue();
+		assertThat(coalescer.rename(2L, "other")).isTrue();
+		coalescer.flush();
+
+		assertThat(flushedBatches).containsExactly(Map.of(1L, "second", 2L, "other"));
+		coalescer.flush();
+		assertThat(flushedBatches).hasSize(1);
+	}
+
+	@Test
+	void failedFlushIsRetriedUnlessANewerRenameArrived() {
+		TodoWriteCoalescer coalescer = coalescer(10);
+		doAnswer(invocation -> {
+			coalescer.rename(2L, "newer");
+			throw new IllegalStateException("database down");
+		}).doAnswer(invocation -> {
+			Map<Long, String> namesById = invocation.getArgument(0);
+			flushedBatches.add(Map.copyOf(namesById));
+			return List.copyOf(namesById.keySet());
+		}).when(batchWriter).updateNames(anyMap());
+
+		coalescer.rename(1L, "kept");
+		coalescer.rename(2L, "replaced");
+		coalescer.flush();
+		coalescer.flush();
+
+		assertThat(flushedBatches).containsExactly(Map.of(1L, "kept", 2L, "newer"));
+	}
+
+	@Test
+	void readsSeeBufferedAndInFlightRenames() {
+		TodoWriteCoalescer coalescer = coalescer(10);
+		List<String> seenDuringFlush = new ArrayList<>();
+		doAnswer(invocation -> {
+			seenDuringFlush.add(coalescer.applyPending(todo(1L, "stored")).getName());
+			return List.of(1L);
+		}).when(batchWriter).updateNames(anyMap());
+
+		coalescer.rename(1L, "buffered");
+		assertThat(coalescer.applyPending(todo(1L, "stored")).getName()).isEqualTo("buffered");
+		assertThat(coalescer.applyPending(todo(2L, "untouched")).getName()).isEqualTo("untouched");
+
+		coalescer.flush();
+
+		assertThat(seenDuringFlush).containsExactly("buffered");
+		assertThat(coalescer.applyPending(todo(1L, "stored")).getName()).isEqualTo("stored");
+	}
+
+	@Test
+	void discardedRenamesAreNotFlushed() {
+		TodoWriteCoalescer coalescer = coalescer(10);
+
+		coalescer.rename(1L, "gone");
+		coalescer.discard(1L);
+		coalescer.flush();
+
+		verify(batchWriter, never()).updateNames(anyMap());
+		assertThat(coalescer.applyPending(todo(1L, "stored")).getName()).isEqualTo("stored");
+	}
+
+	@Test
+	void fullBufferStillTakesTodosThatAreBeingFlushed() {
+		TodoWriteCoalescer coalescer = coalescer(1);
+		List<Boolean> bufferedDuringFlush = new ArrayList<>();
+		doAnswer(invocation -> {
+			Map<Long, String> namesById = invocation.getArgument(0);
+			flushedBatches.add(Map.copyOf(namesById));
+			if (flushedBatches.size() == 1) {
+				bufferedDuringFlush.add(coalescer.rename(2L, "fills the buffer"));
+				bufferedDuringFlush.add(coalescer.rename(3L, "over the limit"));
+				bufferedDuringFlush.add(coalescer.rename(1L, "in flight"));
+			}
+			return List.copyOf(namesById.keySet());
+		}).when(batchWriter).updateNames(anyMap());
+
+		assertThat(coalescer.rename(1L, "first")).isTrue();
+		coalescer.flush();
+		coalescer.flush();
+
+		assertThat(bufferedDuringFlush).containsExactly(true, false, true);
+		assertThat(flushedBatches).containsExactly(
+			Map.of(1L, "first"),
+			Map.of(1L, "in flight", 2L, "fills the buffer"));
+	}
+
+	@Test
+	void flushesOnItsOwnThreadAndDrainsOnShutdown() throws InterruptedException {
+		TodoWriteCoalescer coalescer = new TodoWriteCoalescer(batchWriter, eventPublisher,
+			new TodoCache(null, false, 1, Duration.ofMinutes(1)), transactionTemplate(), entityManagerFactory(), true, 10, 10);
+		List<String> flushThreads = new CopyOnWriteArrayList<>();
+		Map<Long, String> flushed = new ConcurrentHashMap<>();
+		CountDownLatch firstFlush = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			Map<Long, String> namesById = invocation.getArgument(0);
+			flushThreads.add(Thread.currentThread().getName());
+			flushed.putAll(namesById);
+			firstFlush.countDown();
+			return List.copyOf(namesById.keySet());
+		}).when(batchWriter).updateNames(anyMap());
+
+		coalescer.start();
+		coalescer.rename(1L, "scheduled");
+		assertThat(firstFlush.await(5, TimeUnit.SECONDS)).isTrue();
+		coalescer.rename(2L, "before shutdown");
+		coalescer.shutdown();
+
+		assertThat(flushThreads).first().isEqualTo("todo-write-coalescer");
+		assertThat(flushed).containsExactlyInAnyOrderEntriesOf(Map.of(1L, "scheduled", 2L, "before shutdown"));
+	}
+
+	@Test
+	void disabledNeverBuffers() {
+		TodoWriteCoalescer coalescer = new TodoWriteCoalescer(batchWriter, eventPublisher,
+			new TodoCache(null, false, 1, Duration.ofMinutes(1)), transactionTemplate(), entityManagerFactory(), false, 200, 10);
+
+		assertThat(coalescer.rename(1L, "name")).isFalse();
+		assertThat(coalescer.applyPending(todo(1L, "stored")).getName()).isEqualTo("stored");
+	}
+
+	private TodoWriteCoalescer coalescer(int maxPending) {
+		return new TodoWriteCoalescer(batchWriter, eventPublisher,
+			new TodoCache(null, false, 1, Duration.ofMinutes(1)), transactionTemplate(), entityManagerFactory(), true, 200, maxPending);
+	}
+
+	private static TransactionTemplate transactionTemplate() {
+		TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+			invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		return transactionTemplate;
+	}
+
+	private static EntityManagerFactory entityManagerFactory() {
+		EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+		when(entityManagerFactory.getCache()).thenReturn(mock(Cache.class));
+		return entityManagerFactory;
+	}
+
+	private static Todo todo(Long id, String name) {
+		Todo todo = new Todo();
+		todo.setId(id);
+		todo.setName(name);
+		return todo;
+	}
+}
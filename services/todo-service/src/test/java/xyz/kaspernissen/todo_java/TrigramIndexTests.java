@@ -0,0 +1,62 @@
+package xyz.kaspernissen.todo_java;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTests {
+
+	private static List<Long> ids(List<TrigramIndex.Hit> hits) {
+		return hits.stream().map(TrigramIndex.Hit::id).toList();
+	}
+
+	@Test
+	void findsSubstringsAndRanksWholeWordsFirst() {
+		TrigramIndex index = new TrigramIndex();
+		index.put(1, "Buy almonds");
+		index.put(2, "Buy milk");
+		index.put(3, "Milkshake for the kids");
+		index.put(4, "Walk the dog");
+
+		assertThat(ids(index.search("milk", 10))).containsExactly(2L, 3L);
+		assertThat(ids(index.search("ALMO", 10))).containsExactly(1L);
+		assertThat(ids(index.search("ilks", 10))).containsExactly(3L);
+		assertThat(ids(index.search("buy milk", 10))).containsExactly(2L);
+	}
+
+	@Test
+	void matchesShortQueriesAsWordPrefixes() {
+		TrigramIndex index = new TrigramIndex();
+		index.put(1, "Buy milk");
+		index.put(2, "Walk the dog");
+
+		assertThat(ids(index.search("m", 10))).containsExactly(1L);
+		assertThat(ids(index.search("do", 10))).containsExactly(2L);
+		assertThat(ids(index.search("og", 10))).isEmpty();
+	}
+
+	@Test
+	void fallsBackToFuzzyMatchesForTypos() {
+		TrigramIndex index = new TrigramIndex();
+		index.put(1, "Schedule dentist appointment");
+		index.put(2, "Water the plants");
+
+		assertThat(ids(index.search("apointment", 10))).containsExactly(1L);
+		assertThat(ids(index.search("dentsit", 10))).containsExactly(1L);
+	}
+
+	@Test
+	void reindexesUpdatedAndForgetsRemovedTexts() {
+		TrigramIndex index = new TrigramIndex();
+		index.put(1, "Buy milk");
+		index.put(1, "Buy bread");
+		index.put(2, "Bread crumbs");
+		index.remove(2);
+
+		assertThat(ids(index.search("milk", 10))).isEmpty();
+		assertThat(ids(index.search("bread", 10))).containsExactly(1L);
+		assertThat(index.size()).isEqualTo(1);
+	}
+}
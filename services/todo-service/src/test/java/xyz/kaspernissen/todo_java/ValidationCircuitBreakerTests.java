@@ -0,0 +1,56 @@
+package xyz.kaspernissen.todo_java;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ValidationCircuitBreakerTests {
+
+	@Test
+	void opensOnceFailureRateReachesThreshold() {
+		ValidationCircuitBreaker breaker = new ValidationCircuitBreaker(true, 4, 4, 0.5, Duration.ofMinutes(1));
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(breaker.tryAcquire()).isTrue();
+			if (i == 0) {
+				breaker.onFailure();
+			} else {
+				breaker.onSuccess();
+			}
+		}
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onFailure();
+
+		assertThat(breaker.getState()).isEqualTo(ValidationCircuitBreaker.State.OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void halfOpenAllowsSingleProbeThatClosesOnSuccess() {
+		ValidationCircuitBreaker breaker = new ValidationCircuitBreaker(true, 2, 1, 0.5, Duration.ZERO);
+		breaker.tryAcquire();
+		breaker.onFailure();
+		assertThat(breaker.getState()).isEqualTo(ValidationCircuitBreaker.State.OPEN);
+
+		assertThat(breaker.tryAcquire()).isTrue();
+		assertThat(breaker.getState()).isEqualTo(ValidationCircuitBreaker.State.HALF_OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+
+		breaker.onSuccess();
+		assertThat(breaker.getState()).isEqualTo(ValidationCircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void failedProbeReopens() {
+		ValidationCircuitBreaker breaker = new ValidationCircuitBreaker(true, 2, 1, 0.5, Duration.ZERO);
+		breaker.tryAcquire();
+		breaker.onFailure();
+
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onFailure();
+
+		assertThat(breaker.getState()).isEqualTo(ValidationCircuitBreaker.State.OPEN);
+	}
+}
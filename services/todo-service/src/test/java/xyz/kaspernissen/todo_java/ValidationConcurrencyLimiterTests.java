@@ -0,0 +1,108 @@
+package xyz.kaspernissen.todo_java;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ValidationConcurrencyLimiterTests {
+
+	@Test
+	void rejectsCallsOverTheLimit() {
+		ValidationConcurrencyLimiter limiter = new ValidationConcurrencyLimiter(true, 2, 1, 10, 0.5);
+
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isFalse();
+
+		limiter.onIgnored();
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+		assertThat(limiter.tryAcquire()).isTrue();
+	}
+
+	@Test
+	void growsAdditivelyWhileTheLimitIsInUse() {
+		ValidationConcurrencyLimiter limiter = new ValidationConcurrencyLimiter(true, 2, 1, 10, 0.5);
+		limiter.tryAcquire();
+
+		// Keeps two calls in flight: 2 -> 2.5 -> 2.9 -> 3.24
+		for (int i = 0; i < 3; i++) {
+			assertThat(limiter.tryAcquire()).isTrue();
+			limiter.onSuccess();
+		}
+
+		assertThat(limiter.getLimit()).isEqualTo(3);
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+	}
+
+	@Test
+	void doesNotGrowWhileMostlyIdle() {
+		ValidationConcurrencyLimiter limiter = new ValidationConcurrencyLimiter(true, 10, 1, 100, 0.5);
+
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire();
+			limiter.onSuccess();
+		}
+
+		assertThat(limiter.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void growthStopsAtMax() {
+		ValidationConcurrencyLimiter limiter = new ValidationConcurrencyLimiter(true, 3, 1, 3, 0.5);
+		limiter.tryAcquire();
+		limiter.tryAcquire();
+
+		for (int i = 0; i < 50; i++) {
+			limiter.tryAcquire();
+			limiter.onSuccess();
+		}
+
+		assertThat(limiter.getLimit()).isEqualTo(3);
+	}
+
+	@Test
+	void backsOffMultiplicativelyDownToMin() {
+		ValidationConcurrencyLimiter limiter = new ValidationConcurrencyLimiter(true, 10, 2, 10, 0.5);
+
+		limiter.tryAcquire();
+		limiter.onDropped();
+		assertThat(limiter.getLimit()).isEqualTo(5);
+
+		limiter.tryAcquire();
+		limiter.onDropped();
+		assertThat(limiter.getLimit()).isEqualTo(2);
+
+		limiter.tryAcquire();
+		limiter.onDropped();
+		assertThat(limiter.getLimit()).isEqualTo(2);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void ignoredCallsReleaseWithoutChangingTheLimit() {
+		ValidationConcurrencyLimiter limiter = new ValidationConcurrencyLimiter(true, 4, 1, 10, 0.5);
+		for (int i = 0; i < 4; i++) {
+			limiter.tryAcquire();
+		}
+
+		for (int i = 0; i < 4; i++) {
+			limiter.onIgnored();
+		}
+
+		assertThat(limiter.getLimit()).isEqualTo(4);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void disabledPermitsEverything() {
+		ValidationConcurrencyLimiter limiter = new ValidationConcurrencyLimiter(false, 1, 1, 1, 0.5);
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(limiter.tryAcquire()).isTrue();
+		}
+		limiter.onDropped();
+
+		assertThat(limiter.getInFlight()).isZero();
+		assertThat(limiter.getLimit()).isEqualTo(1);
+	}
+}
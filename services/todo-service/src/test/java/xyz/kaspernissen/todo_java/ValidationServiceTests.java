@@ -0,0 +1,49 @@
+package xyz.kaspernissen.todo_java;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ValidationServiceTests {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@Test
+	void badRequestWithValidFalseIsARejection() {
+		assertThat(ValidationService.isRejection(response(400, "{\"valid\":false,\"message\":\"bad word\"}"))).isTrue();
+	}
+
+	@Test
+	void badRequestWithoutValidationBodyIsAFailure() {
+		assertThat(ValidationService.isRejection(response(400, "<html>Bad Request</html>"))).isFalse();
+		assertThat(ValidationService.isRejection(response(400, "{\"error\":\"malformed\"}"))).isFalse();
+		assertThat(ValidationService.isRejection(response(400, ""))).isFalse();
+	}
+
+	@Test
+	void otherClientErrorsAreFailures() {
+		assertThat(ValidationService.isRejection(response(404, "{\"valid\":false}"))).isFalse();
+		assertThat(ValidationService.isRejection(response(401, "{\"valid\":false}"))).isFalse();
+	}
+
+	private static WebClientResponseException response(int status, String body) {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		WebClientResponseException err = WebClientResponseException.create(
+			status, "status " + status, new HttpHeaders(), bytes, StandardCharsets.UTF_8);
+		err.setBodyDecodeFunction(type -> {
+			try {
+				return bytes.length == 0 ? null : MAPPER.readTree(bytes);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		return err;
+	}
+}